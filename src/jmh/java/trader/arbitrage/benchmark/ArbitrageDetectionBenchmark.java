@@ -0,0 +1,208 @@
+package trader.arbitrage.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import trader.arbitrage.client.mexc.MexcOrderBooks;
+import trader.arbitrage.client.pancake.PancakeImpactLadders;
+import trader.arbitrage.model.ArbitrageOpportunity;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.arbitrage.PriceTickDispatcher;
+import trader.arbitrage.service.arbitrage.SpreadMatrixArbitrageService;
+import trader.arbitrage.service.priceservice.PriceBoard;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.telegram.ArbitrageAlertAggregator;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detection hot path: one operation is a full scan of every symbol across its venue row, i.e. one
+ * poll of {@link SpreadMatrixArbitrageService}. {@code hitRatio} is the share of symbol/venue
+ * quotes far enough from the MEXC price to exceed the threshold. Spreads that persist are
+ * deduplicated by the alert hysteresis, so past the first scan hits cost a suppressed alert.
+ * <p>
+ * The first {@code venues} venues in {@link Venue} order are quoted, so {@code venues} is bounded
+ * by the venues the board knows. Opportunity logging is raised to WARN and notifications are
+ * swallowed, so the numbers cover detection rather than appenders and Telegram.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArbitrageDetectionBenchmark {
+
+    private static final double THRESHOLD_PERCENT = 2;
+    private static final double EXIT_THRESHOLD_PERCENT = 1.5;
+    private static final double MATERIAL_CHANGE_PERCENT = 0.5;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int symbols;
+
+    @Param({"2", "3", "4"})
+    private int venues;
+
+    @Param({"0", "0.01", "0.1", "0.5"})
+    private double hitRatio;
+
+    private Logger arbitrageLogger;
+    private Level previousLevel;
+    private PriceTickDispatcher tickDispatcher;
+    private DetectionHarness detector;
+    private BigDecimal[] primaryPrices;
+    private BigDecimal[] secondaryPrices;
+    private long[] primaryMantissas;
+    private long[] secondaryMantissas;
+
+    @Setup
+    public void setUp() {
+        if (venues < 2 || venues > Venue.values().length) {
+            throw new IllegalArgumentException("venues must be between 2 and " + Venue.values().length);
+        }
+        arbitrageLogger = (Logger) LoggerFactory.getLogger("trader.arbitrage");
+        previousLevel = arbitrageLogger.getLevel();
+        arbitrageLogger.setLevel(Level.WARN);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SymbolRegistry symbolRegistry = new SymbolRegistry(symbols);
+        PriceBoard priceBoard = new PriceBoard(symbolRegistry);
+        tickDispatcher = new PriceTickDispatcher(meterRegistry, symbolRegistry, PriceTickDispatcher.MODE_POLL);
+        detector = new DetectionHarness(
+                tickDispatcher,
+                symbolRegistry,
+                priceBoard,
+                new MexcOrderBooks(symbolRegistry, meterRegistry, false, 0),
+                new PancakeImpactLadders(symbolRegistry, meterRegistry, new long[0]),
+                new ArbitrageAlertAggregator(null, symbolRegistry, meterRegistry,
+                        THRESHOLD_PERCENT, EXIT_THRESHOLD_PERCENT, MATERIAL_CHANGE_PERCENT),
+                Counter.builder("arbitrage.opportunities").register(meterRegistry));
+
+        // Prices around 1.0000 at scale 4; hits are 3% apart, misses 0.5%
+        SplittableRandom random = new SplittableRandom(42);
+        Instant now = Instant.now();
+        int pairs = symbols * (venues - 1);
+        primaryPrices = new BigDecimal[pairs];
+        secondaryPrices = new BigDecimal[pairs];
+        primaryMantissas = new long[pairs];
+        secondaryMantissas = new long[pairs];
+        for (int symbolId = 0; symbolId < symbols; symbolId++) {
+            String symbol = "TOKEN" + symbolId + SymbolRegistry.QUOTE_SUFFIX;
+            symbolRegistry.register(symbol);
+            long primary = 10_000 + random.nextInt(1_000);
+            priceBoard.publish(symbolId, Venue.MEXC, price(symbol, primary, Venue.MEXC, now));
+            for (int v = 1; v < venues; v++) {
+                Venue venue = Venue.values()[v];
+                long secondary = random.nextDouble() < hitRatio ? primary * 103 / 100 : primary * 1005 / 1000;
+                priceBoard.publish(symbolId, venue, price(symbol, secondary, venue, now));
+
+                int pair = symbolId * (venues - 1) + v - 1;
+                primaryMantissas[pair] = primary;
+                secondaryMantissas[pair] = secondary;
+                primaryPrices[pair] = BigDecimal.valueOf(primary, 4);
+                secondaryPrices[pair] = BigDecimal.valueOf(secondary, 4);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tickDispatcher.shutdown();
+        arbitrageLogger.setLevel(previousLevel);
+    }
+
+    private static TokenPrice price(String symbol, long mantissa, Venue venue, Instant timestamp) {
+        return TokenPrice.builder()
+                .symbol(symbol)
+                .priceMantissa(mantissa)
+                .priceScale(4)
+                .exchange(venue.exchangeName())
+                .timestamp(timestamp)
+                .build();
+    }
+
+    /**
+     * Full scan through {@link SpreadMatrixArbitrageService#checkForArbitrageOpportunities()}
+     */
+    @Benchmark
+    public int checkForArbitrageOpportunities() {
+        detector.checkForArbitrageOpportunities();
+        return detector.notified;
+    }
+
+    /**
+     * Spread of every pair with the BigDecimal percentage formula
+     */
+    @Benchmark
+    public void calculatePriceDifferencePercent(Blackhole blackhole) {
+        for (int pair = 0; pair < primaryPrices.length; pair++) {
+            blackhole.consume(detector.percent(primaryPrices[pair], secondaryPrices[pair]));
+        }
+    }
+
+    /**
+     * Spread of every pair on fixed-point mantissas, for comparison with the BigDecimal formula
+     */
+    @Benchmark
+    public void calculatePriceDifferenceBasisPoints(Blackhole blackhole) {
+        for (int pair = 0; pair < primaryMantissas.length; pair++) {
+            blackhole.consume(detector.basisPoints(primaryMantissas[pair], secondaryMantissas[pair]));
+        }
+    }
+
+    /**
+     * Detection engine with notifications and event persistence swallowed
+     */
+    static class DetectionHarness extends SpreadMatrixArbitrageService {
+
+        int notified;
+
+        DetectionHarness(
+                PriceTickDispatcher tickDispatcher,
+                SymbolRegistry symbolRegistry,
+                PriceBoard priceBoard,
+                MexcOrderBooks orderBooks,
+                PancakeImpactLadders impactLadders,
+                ArbitrageAlertAggregator alertAggregator,
+                Counter arbitrageOpportunityCounter) {
+            // Persistence is skipped with the notifications in processArbitrageOpportunity
+            super(alertAggregator, tickDispatcher, symbolRegistry, priceBoard, orderBooks, impactLadders, null,
+                    arbitrageOpportunityCounter);
+            this.executableNotionals = new long[0];
+            init();
+        }
+
+        @Override
+        protected void processArbitrageOpportunity(ArbitrageOpportunity opportunity) {
+            notified++;
+        }
+
+        BigDecimal percent(BigDecimal price1, BigDecimal price2) {
+            return calculatePriceDifferencePercent(price1, price2);
+        }
+
+        long basisPoints(long price1, long price2) {
+            return calculatePriceDifferenceBasisPoints(price1, price2);
+        }
+    }
+}
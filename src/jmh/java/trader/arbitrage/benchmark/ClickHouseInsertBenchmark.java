@@ -0,0 +1,144 @@
+package trader.arbitrage.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import trader.arbitrage.database.ClickHouseHttpWriter;
+import trader.arbitrage.database.RowBinaryEncoder;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.clickhouse.TokenPriceRecord;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side of a {@code token_prices} insert, in rows per second: RowBinary, with and without
+ * the LZ4 frame that goes on the wire, against a text {@code INSERT ... VALUES} baseline. The
+ * baseline only approximates the JDBC path: it maps the records to {@code Object[]} as
+ * {@code ClickHouseRepository.savePricesBatch} does and renders the values by hand, but the
+ * driver's own statement preparation needs a connection to a server and is not measured. The
+ * server side is covered by the {@code clickhouse.insert} timer instead.
+ * <p>
+ * Run with the GC profiler (default in the jmh profile): {@code rowBinaryFromPrices} is expected to
+ * allocate nothing per row once the encoder has grown.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClickHouseInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final String[] SYMBOLS = {"RFC_USDT", "ALCH_USDT", "BTC_USDT", "ETH_USDT", "CAKE_USDT"};
+    private static final String[] EXCHANGES = {"MEXC", "CoinMarketCap", "DexScreener", "PancakeSwap"};
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Param({"true", "false"})
+    private boolean compress;
+
+    private List<TokenPrice> prices;
+    private List<TokenPriceRecord> records;
+    private RowBinaryEncoder encoder;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        prices = new ArrayList<>(ROWS);
+        records = new ArrayList<>(ROWS);
+        Instant now = Instant.parse("2024-05-01T12:00:00Z");
+        for (int i = 0; i < ROWS; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextLong(1, 100_000_000), 6);
+            Instant timestamp = now.plusMillis(i * 250L);
+            TokenPrice tokenPrice = TokenPrice.builder()
+                    .symbol(SYMBOLS[i % SYMBOLS.length])
+                    .exchange(EXCHANGES[i % EXCHANGES.length])
+                    .price(price)
+                    .timestamp(timestamp)
+                    .build();
+            prices.add(tokenPrice);
+            records.add(new TokenPriceRecord(
+                    tokenPrice.getSymbol(),
+                    tokenPrice.getExchange(),
+                    price,
+                    LocalDateTime.ofInstant(timestamp, ZoneId.systemDefault())));
+        }
+        encoder = new RowBinaryEncoder(ROWS * 40, ZoneId.systemDefault());
+    }
+
+    /**
+     * Text-format approximation of the JDBC path: Object[] arguments per row, then a hand-built
+     * VALUES statement. Not what clickhouse-jdbc sends byte for byte, so read it as a rough baseline.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public byte[] textValuesApproximation() {
+        List<Object[]> args = records.stream()
+                .map(r -> new Object[]{
+                        r.getSymbol(),
+                        Optional.ofNullable(r.getExchange()).orElse("UNKNOWN"),
+                        r.getPrice(),
+                        r.getTimestamp()
+                })
+                .toList();
+        StringBuilder sql = new StringBuilder("INSERT INTO token_prices (symbol, exchange, price, timestamp) VALUES ");
+        for (int i = 0; i < args.size(); i++) {
+            Object[] row = args.get(i);
+            sql.append(i == 0 ? "(" : ",(")
+                    .append('\'').append(row[0]).append("','").append(row[1]).append("',")
+                    .append(((BigDecimal) row[2]).toPlainString())
+                    .append(",'").append(DATE_TIME.format((LocalDateTime) row[3])).append("')");
+        }
+        byte[] body = sql.toString().getBytes(StandardCharsets.UTF_8);
+        return compress ? ClickHouseHttpWriter.lz4(body, body.length) : body;
+    }
+
+    /**
+     * RowBinary from the records the service buffers today
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int rowBinaryFromRecords() {
+        encoder.reset();
+        for (int i = 0; i < ROWS; i++) {
+            encoder.writePrice(records.get(i));
+        }
+        return finish();
+    }
+
+    /**
+     * RowBinary straight from the published prices
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int rowBinaryFromPrices() {
+        encoder.reset();
+        for (int i = 0; i < ROWS; i++) {
+            encoder.writePrice(prices.get(i));
+        }
+        return finish();
+    }
+
+    private int finish() {
+        return compress ? ClickHouseHttpWriter.lz4(encoder.array(), encoder.size()).length : encoder.size();
+    }
+}
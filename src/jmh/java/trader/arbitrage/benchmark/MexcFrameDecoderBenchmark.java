@@ -0,0 +1,103 @@
+package trader.arbitrage.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import trader.arbitrage.client.mexc.MexcFrameDecoder;
+import trader.arbitrage.client.mexc.MexcTicker;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming MEXC frame decoder with the previous String + JsonNode tree path.
+ * Run with the GC profiler (default in the jmh profile) to see bytes allocated per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MexcFrameDecoderBenchmark {
+
+    private static final String TICKER_FRAME = "{\"channel\":\"push.ticker\",\"data\":{"
+            + "\"ask1\":0.0413,\"bid1\":0.0412,\"contractId\":123,\"fairPrice\":0.04125,"
+            + "\"fundingRate\":0.0001,\"high24Price\":0.045,\"holdVol\":1234567,\"indexPrice\":0.04126,"
+            + "\"lastPrice\":0.0413,\"lower24Price\":0.039,\"maxBidPrice\":0.045,\"minAskPrice\":0.037,"
+            + "\"riseFallRate\":0.0123,\"riseFallValue\":0.0005,\"symbol\":\"RFC_USDT\","
+            + "\"timestamp\":1714400000000,\"volume24\":98765432},"
+            + "\"symbol\":\"RFC_USDT\",\"ts\":1714400000000}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MexcTicker ticker = new MexcTicker();
+    private MexcFrameDecoder decoder;
+    private DataBuffer frame;
+
+    @Setup
+    public void setUp() {
+        decoder = new MexcFrameDecoder(new SymbolRegistry(16), List.of("RFC_USDT", "ALCH_USDT", "BTC_USDT", "ETH_USDT"));
+        frame = DefaultDataBufferFactory.sharedInstance.wrap(TICKER_FRAME.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Previous path: payload String, JsonNode tree, BigDecimal from text
+     */
+    @Benchmark
+    public TokenPrice treeParser() throws Exception {
+        String payload = frame.toString(StandardCharsets.UTF_8);
+        JsonNode rootNode = objectMapper.readTree(payload);
+        if (!"push.ticker".equals(rootNode.path("channel").asText())) {
+            return null;
+        }
+        JsonNode data = rootNode.path("data");
+        return TokenPrice.builder()
+                .symbol(data.path("symbol").asText())
+                .price(new BigDecimal(data.path("lastPrice").asText("0")))
+                .exchange("MEXC")
+                .timestamp(Instant.ofEpochMilli(data.path("timestamp").asLong(System.currentTimeMillis())))
+                .build();
+    }
+
+    /**
+     * Streaming decoder including the TokenPrice handed to the price sinks
+     */
+    @Benchmark
+    public TokenPrice streamingDecoder() {
+        if (decoder.decode(frame, ticker) != MexcFrameDecoder.CHANNEL_TICKER || !ticker.isComplete()) {
+            return null;
+        }
+        return TokenPrice.builder()
+                .symbol(ticker.getSymbol())
+                .priceMantissa(ticker.getPriceMantissa())
+                .priceScale(ticker.getPriceScale())
+                .exchange("MEXC")
+                .timestamp(Instant.ofEpochMilli(ticker.getTimestamp()))
+                .build();
+    }
+
+    /**
+     * Decoding alone; expected to allocate nothing
+     */
+    @Benchmark
+    public long streamingDecoderOnly() {
+        decoder.decode(frame, ticker);
+        return ticker.getPriceMantissa() + ticker.getTimestamp();
+    }
+}
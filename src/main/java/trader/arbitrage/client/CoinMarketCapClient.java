@@ -1,34 +1,37 @@
 package trader.arbitrage.client;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 import reactor.util.retry.Retry;
 import reactor.util.retry.RetryBackoffSpec;
+import trader.arbitrage.client.json.CoinMarketCapQuoteDecoder;
+import trader.arbitrage.client.json.StreamingJsonDecoder;
+import trader.arbitrage.client.polling.AdaptivePollingPlanner;
+import trader.arbitrage.client.polling.PollingBudget;
+import trader.arbitrage.client.ratelimit.RateLimitExceededException;
 import trader.arbitrage.config.metrics.TimerUtils;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceSink;
+import trader.arbitrage.service.stream.PriceStreams;
 
-import java.math.BigDecimal;
 import java.net.URI;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -39,9 +42,15 @@ public class CoinMarketCapClient {
     private final Counter apiCallsCounter;
     private final WebClient coinCapClient;
     private final List<String> tokens;
-    private final ObjectMapper objectMapper;
     private final MeterRegistry registry;
-    private final Map<String, Sinks.Many<TokenPrice>> priceStreams = new HashMap<>();
+    private final SymbolRegistry symbolRegistry;
+    private final PriceStreams priceStreams;
+    private final AdaptivePollingPlanner pollingPlanner;
+    // Indexed by symbol ID
+    private AtomicReferenceArray<PriceSink> priceSinks;
+    // Comma-separated base assets of the configured tokens, built once
+    private String symbolsParam;
+    private PollingBudget pollingBudget;
 
     @Value("${coincap.api.max-attempts:3}")
     private int maxAttempts;
@@ -52,89 +61,115 @@ public class CoinMarketCapClient {
     @Value("${coincap.api.max-backoff:10000}")
     private long maxBackoffMillis;
 
-    // Track API calls within time windows
-    private final AtomicInteger apiCallsInCurrentMinute = new AtomicInteger(0);
-    private long currentMinuteStartTime = System.currentTimeMillis();
+    // Calls per minute spent on adaptive polling; the default matches the fixed 10 s interval
+    @Value("${coincap.api.polling.calls-per-minute:6}")
+    private int pollingCallsPerMinute;
 
-    // CoinMarketCap typically has a rate limit of ~30 calls per minute
-    @Value("${coincap.api.calls-per-minute:25}")
-    private int maxCallsPerMinute;
+    @Value("${coincap.api.symbols-per-request:100}")
+    private int symbolsPerRequest;
 
     @PostConstruct
     public void init() {
+        priceSinks = new AtomicReferenceArray<>(symbolRegistry.capacity());
         tokens.forEach(this::createPriceStream);
+        symbolsParam = tokens.stream()
+                .map(token -> symbolRegistry.baseAsset(symbolRegistry.id(token)))
+                .collect(Collectors.joining(","));
         log.info("Price streams created for tokens: {}", tokens);
+        pollingBudget = pollingPlanner.budget(
+                Venue.COIN_MARKET_CAP.exchangeName(),
+                Venue.COIN_MARKET_CAP,
+                tokens.stream().mapToInt(symbolRegistry::id).toArray(),
+                symbolsPerRequest,
+                pollingCallsPerMinute);
     }
 
     private void createPriceStream(String token) {
-        priceStreams.put(token, Sinks.many().multicast().onBackpressureBuffer());
+        int symbolId = symbolRegistry.register(token);
+        priceSinks.compareAndSet(symbolId, null, priceStreams.create(Venue.COIN_MARKET_CAP, token));
     }
 
-    public Flux<TokenPrice> getPriceStream(String token) {
-        if (!priceStreams.containsKey(token)) {
+    public Flux<TokenPrice> getPriceStream(String token, String consumer, DeliveryPolicy policy) {
+        int symbolId = symbolRegistry.id(token);
+        PriceSink sink = symbolId >= 0 ? priceSinks.get(symbolId) : null;
+        if (sink == null) {
             log.warn("Price stream for token {} not found", token);
             return Flux.empty();
         }
-        return priceStreams.get(token).asFlux();
+        return sink.asFlux(consumer, policy);
     }
 
+    /**
+     * Fetches all tokens at the fixed update interval; only used when adaptive polling is disabled
+     */
     @Scheduled(fixedRateString = "${coincap.api.update-interval}")
     public void fetchPrices() {
-        checkAndResetRateLimit();
-
-        if (apiCallsInCurrentMinute.get() >= maxCallsPerMinute) {
-            log.warn("Rate limit reached ({} calls in current minute). Skipping this update cycle.",
-                    apiCallsInCurrentMinute.get());
+        if (pollingPlanner.isEnabled()) {
             return;
         }
+        fetchPrices(symbolsParam);
+    }
 
-        String symbols = tokens.stream()
-                .map(token -> token.split("_")[0])
-                .collect(Collectors.joining(","));
+    /**
+     * Fetches the tokens whose adaptive refresh interval has passed, in one call taken from the
+     * polling budget
+     */
+    @Scheduled(fixedDelayString = "${polling.adaptive.tick:500}")
+    public void pollDuePrices() {
+        if (!pollingPlanner.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int[] due = pollingBudget.due(now);
+        if (due.length == 0 || !pollingBudget.tryAcquireCall()) {
+            return;
+        }
+        StringBuilder symbols = new StringBuilder();
+        for (int i = 0; i < Math.min(due.length, symbolsPerRequest); i++) {
+            pollingBudget.polled(due[i], now);
+            if (!symbols.isEmpty()) {
+                symbols.append(',');
+            }
+            symbols.append(symbolRegistry.baseAsset(pollingBudget.symbolId(due[i])));
+        }
+        fetchPrices(symbols.toString());
+    }
 
-        // Increment API call counter before making the call
-        apiCallsInCurrentMinute.incrementAndGet();
+    private void fetchPrices(String symbols) {
+        // Pacing (coincap.api.calls-per-minute) is enforced by the rate limit filter of coinCapClient
         apiCallsCounter.increment();
 
         fetchTokenPrice(symbols)
-                .doOnNext(tokenPriceMap -> {
-                    tokenPriceMap.forEach((token, price) -> {
-                        if (priceStreams.containsKey(token)) {
-                            priceStreams.get(token).tryEmitNext(price);
-                            log.info("CoinMarketCap price update for {}: {}", token, price.getPrice());
-                        }
-                    });
+                .doOnNext(price -> {
+                    String token = price.getSymbol();
+                    int symbolId = symbolRegistry.id(token);
+                    PriceSink sink = priceSinks.get(symbolId);
+                    if (sink != null) {
+                        pollingBudget.observe(symbolId, price);
+                        sink.emit(price);
+                        log.info("CoinMarketCap price update for {}: {}", token, price.getPrice());
+                    }
                 })
                 .doOnError(error -> log.error("Failed to fetch prices after retries: {}", error.getMessage()))
                 .subscribe();
     }
 
-    private void checkAndResetRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long timeElapsed = currentTime - currentMinuteStartTime;
-
-        // Reset counter if a minute has passed
-        if (timeElapsed >= 60000) { // 60 seconds in milliseconds
-            log.debug("Resetting rate limit counter. Previous count: {}", apiCallsInCurrentMinute.get());
-            apiCallsInCurrentMinute.set(0);
-            currentMinuteStartTime = currentTime;
-        }
-    }
-
     /**
      * Получает цены токенов с API CoinMarketCap.
+     * Ответ разбирается потоково: каждая цена выдаётся, как только прочитан её объект.
      * @param symbols Строка с символами токенов для запроса
-     * @return Mono с картой соответствия символов токенов и их цен
+     * @return Flux цен токенов
      */
-    private Mono<Map<String, TokenPrice>> fetchTokenPrice(String symbols) {
+    private Flux<TokenPrice> fetchTokenPrice(String symbols) {
         log.info("Fetching price for symbols {}", symbols);
-        return TimerUtils.timedMono(
-                () -> coinCapClient.get()
-                .uri(buildRequestUri(symbols))
-                .retrieve()
-                .bodyToMono(String.class)
+        return TimerUtils.timedFlux(
+                () -> StreamingJsonDecoder.decode(
+                        coinCapClient.get()
+                                .uri(buildRequestUri(symbols))
+                                .retrieve()
+                                .bodyToFlux(DataBuffer.class),
+                        () -> new CoinMarketCapQuoteDecoder(symbolRegistry))
                 .retryWhen(createRetrySpec())
-                .map(this::parseResponse)
                 .onErrorResume(this::handleError),
                 registry,
                 "api.calls.latency",
@@ -173,8 +208,8 @@ public class CoinMarketCapClient {
             WebClientResponseException wcre = (WebClientResponseException) throwable;
             int statusCode = wcre.getStatusCode().value();
 
-            // Повторяем при 429 (Too Many Requests) и определенных 5xx ошибках
-            boolean shouldRetry = statusCode == 429 || (statusCode >= 500 && statusCode < 600);
+            // Повторяем при 5xx ошибках; 429 повторяет фильтр rate limit после Retry-After
+            boolean shouldRetry = statusCode >= 500 && statusCode < 600;
 
             if (shouldRetry) {
                 log.warn("Received status code {} from API. Will retry.", statusCode);
@@ -185,72 +220,15 @@ public class CoinMarketCapClient {
         return false;
     }
 
-    /**
-     * Разбор ответа API и преобразование в карту токен-цена.
-     */
-    private Map<String, TokenPrice> parseResponse(String responseBody) {
-        try {
-            Map<String, TokenPrice> result = new HashMap<>();
-            JsonNode jsonNode = objectMapper.readTree(responseBody);
-            JsonNode data = jsonNode.get("data");
-
-            validateApiResponse(jsonNode);
-            processTokenData(data, result);
-
-            return result;
-        } catch (Exception e) {
-            log.error("Error parsing CoinMarketCap response: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to parse CoinMarketCap response", e);
-        }
-    }
-
-    /**
-     * Проверяет ответ API на наличие ошибок.
-     */
-    private void validateApiResponse(JsonNode jsonNode) {
-        JsonNode statusNode = jsonNode.get("status");
-
-        // Проверка на ошибки API
-        if (statusNode != null && statusNode.has("error_code") && statusNode.get("error_code").asInt() != 0) {
-            String errorMessage = statusNode.has("error_message") ?
-                    statusNode.get("error_message").asText() :
-                    "Unknown error in CoinMarketCap response";
-            throw new RuntimeException("API Error: " + errorMessage);
-        }
-
-        if (jsonNode.get("data") == null) {
-            throw new RuntimeException("Missing data in CoinMarketCap response");
-        }
-    }
-
-    /**
-     * Обрабатывает данные токенов из ответа API.
-     */
-    private void processTokenData(JsonNode dataNode, Map<String, TokenPrice> result) {
-        dataNode.fields().forEachRemaining(entry -> {
-            String symbol = entry.getKey();
-            JsonNode tokenData = entry.getValue();
-
-            JsonNode quoteNode = tokenData.get("quote").get("USD");
-            BigDecimal price = new BigDecimal(quoteNode.get("price").asText());
-            String tokenPair = symbol + "_USDT";
-
-            TokenPrice tokenPrice = TokenPrice.builder()
-                    .symbol(tokenPair)
-                    .price(price)
-                    .exchange("CoinMarketCap")
-                    .timestamp(Instant.now())
-                    .build();
-
-            result.put(tokenPair, tokenPrice);
-        });
-    }
-
     /**
      * Обработка ошибок при запросе.
      */
-    private Mono<Map<String, TokenPrice>> handleError(Throwable e) {
+    private Flux<TokenPrice> handleError(Throwable e) {
+        if (e instanceof RateLimitExceededException) {
+            log.warn("Rate limit reached. Skipping this update cycle.");
+            return Flux.empty();
+        }
         log.error("Error fetching prices from CoinMarketCap: {}", e.getMessage(), e);
-        return Mono.empty();
+        return Flux.empty();
     }
 }
\ No newline at end of file
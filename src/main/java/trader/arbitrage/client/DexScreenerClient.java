@@ -1,33 +1,42 @@
 package trader.arbitrage.client;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 import reactor.util.retry.Retry;
 import reactor.util.retry.RetryBackoffSpec;
+import trader.arbitrage.client.json.DexScreenerPairDecoder;
+import trader.arbitrage.client.json.StreamingJsonDecoder;
+import trader.arbitrage.client.polling.AdaptivePollingPlanner;
+import trader.arbitrage.client.polling.PollingBudget;
+import trader.arbitrage.client.ratelimit.RateLimitExceededException;
 import trader.arbitrage.model.DexscreenerProperties;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceSink;
+import trader.arbitrage.service.stream.PriceStreams;
 
-import java.math.BigDecimal;
 import java.net.URI;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -38,8 +47,20 @@ public class DexScreenerClient {
     private final WebClient dexClient;
     //    private final List<String> tokens;
     private final DexscreenerProperties dexProperties;
-    private final ObjectMapper objectMapper;
-    private final Map<String, Sinks.Many<TokenPrice>> priceStreams = new HashMap<>();
+    private final SymbolRegistry symbolRegistry;
+    private final PriceStreams priceStreams;
+    private final MeterRegistry meterRegistry;
+    private final AdaptivePollingPlanner pollingPlanner;
+    // Indexed by symbol ID
+    private AtomicReferenceArray<PriceSink> priceSinks;
+    // Configured tokens split into requests of at most maxAddressesPerRequest addresses
+    private List<Chunk> chunks;
+    private final Map<String, Timer> chunkLatencies = new ConcurrentHashMap<>();
+    // Configured tokens and their chains, indexed by polling budget item
+    private List<DexscreenerProperties.Token> pollingTokens;
+    private List<String> pollingChains;
+    private PollingBudget pollingBudget;
+    private final AtomicBoolean fetchInProgress = new AtomicBoolean();
 
     @Value("${dexscreener.api.max-attempts:3}")
     private int maxAttempts;
@@ -50,98 +71,190 @@ public class DexScreenerClient {
     @Value("${dexscreener.api.max-backoff:10000}")
     private long maxBackoffMillis;
 
-    private final AtomicInteger apiCallsInCurrentMinute = new AtomicInteger(0);
-    private long currentMinuteStartTime = System.currentTimeMillis();
+    // DexScreener accepts at most 30 comma-separated addresses per /tokens/v1 call
+    @Value("${dexscreener.api.max-addresses-per-request:30}")
+    private int maxAddressesPerRequest;
 
-    @Value("${dexscreener.api.calls-per-minute:45}")
-    private int maxCallsPerMinute;
+    @Value("${dexscreener.api.concurrency:4}")
+    private int concurrency;
+
+    // Calls per minute spent on adaptive polling
+    @Value("${dexscreener.api.polling.calls-per-minute:12}")
+    private int pollingCallsPerMinute;
 
     @PostConstruct
     public void init() {
         log.info("Dex properties {}", dexProperties);
-        List<String> tokensList = dexProperties.getTokens().values()
+        priceSinks = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        List<DexscreenerProperties.Token> tokensList = dexProperties.getTokens().values()
                 .stream()
-                .flatMap(
-                        tokens -> tokens.stream()
-                                .map(DexscreenerProperties.Token::getSymbol))
+                .flatMap(List::stream)
                 .toList();
         tokensList.forEach(this::createPriceStream);
-        log.info("Price streams created for tokens on DexScreener: {}", tokensList);
+        log.info("Price streams created for tokens on DexScreener: {}",
+                tokensList.stream().map(DexscreenerProperties.Token::getSymbol).toList());
+        chunks = createChunks();
+        log.info("DexScreener tokens split into {} requests of at most {} addresses",
+                chunks.size(), maxAddressesPerRequest);
+        createPollingBudget();
     }
 
-    private void createPriceStream(String token) {
-        priceStreams.put(token, Sinks.many().multicast().onBackpressureBuffer());
+    private void createPollingBudget() {
+        List<DexscreenerProperties.Token> tokens = new ArrayList<>();
+        List<String> chains = new ArrayList<>();
+        dexProperties.getTokens().forEach((chainId, chainTokens) -> chainTokens.forEach(token -> {
+            tokens.add(token);
+            chains.add(chainId);
+        }));
+        pollingTokens = List.copyOf(tokens);
+        pollingChains = List.copyOf(chains);
+        pollingBudget = pollingPlanner.budget(
+                Venue.DEX_SCREENER.exchangeName(),
+                Venue.DEX_SCREENER,
+                tokens.stream().mapToInt(token -> symbolRegistry.idOfAddress(token.getAddress())).toArray(),
+                maxAddressesPerRequest,
+                pollingCallsPerMinute);
     }
 
-    public Flux<TokenPrice> getPriceStream(String token) {
-        if (!priceStreams.containsKey(token)) {
+    private List<Chunk> createChunks() {
+        int chunkSize = Math.max(1, maxAddressesPerRequest);
+        List<Chunk> result = new ArrayList<>();
+        dexProperties.getTokens().forEach((chainId, tokens) -> {
+            Timer latency = chunkLatency(chainId);
+            for (int from = 0; from < tokens.size(); from += chunkSize) {
+                List<DexscreenerProperties.Token> chunk = tokens.subList(from, Math.min(tokens.size(), from + chunkSize));
+                result.add(new Chunk(chainId, List.copyOf(chunk), latency));
+            }
+        });
+        return List.copyOf(result);
+    }
+
+    private Timer chunkLatency(String chainId) {
+        return chunkLatencies.computeIfAbsent(chainId, chain -> Timer.builder("dexscreener.chunk.latency")
+                .description("Latency of one DexScreener request for a chunk of token addresses")
+                .tag("chain", chain)
+                .register(meterRegistry));
+    }
+
+    private void createPriceStream(DexscreenerProperties.Token token) {
+        // Responses are matched back to the symbol by token address
+        int symbolId = symbolRegistry.registerAddress(token.getAddress(), token.getSymbol());
+        priceSinks.compareAndSet(symbolId, null, priceStreams.create(Venue.DEX_SCREENER, token.getSymbol()));
+    }
+
+    public Flux<TokenPrice> getPriceStream(String token, String consumer, DeliveryPolicy policy) {
+        int symbolId = symbolRegistry.id(token);
+        PriceSink sink = symbolId >= 0 ? priceSinks.get(symbolId) : null;
+        if (sink == null) {
             log.warn("Price stream for token {} not found in DexScreener client", token);
-            return reactor.core.publisher.Flux.empty();
+            return Flux.empty();
         }
-        return priceStreams.get(token).asFlux();
+        return sink.asFlux(consumer, policy);
     }
 
+    /**
+     * Fetches all chunks of all chains with at most {@code dexscreener.api.concurrency} requests in
+     * flight. A cycle is skipped while the previous one is still running. Only used when adaptive
+     * polling is disabled.
+     */
     @Scheduled(fixedRateString = "${dexscreener.api.update-interval}")
     public void fetchPrices() {
-        checkAndResetRateLimit();
-
-        if (apiCallsInCurrentMinute.get() >= maxCallsPerMinute) {
-            log.warn("Rate limit reached ({} calls in current minute). Skipping this update cycle for DexScreener.",
-                    apiCallsInCurrentMinute.get());
+        if (pollingPlanner.isEnabled()) {
             return;
         }
-
-        for (String chainID : dexProperties.getTokens().keySet()) {
-            List<DexscreenerProperties.Token> tokens = dexProperties.getTokens().get(chainID);
-            apiCallsInCurrentMinute.incrementAndGet();
-
-            fetchTokenPrice(chainID, tokens)
-                    .flatMapMany(Flux::fromIterable) // -> Flux<TokenPrice>
-                    .doOnNext(tokenPrice -> {
-                        String symbol = tokenPrice.getSymbol(); // пример: RFC_SOL
-                        if (priceStreams.containsKey(symbol)) {
-                            priceStreams.get(symbol).tryEmitNext(tokenPrice);
-                            log.info("DexScreener price update for {}: {}", symbol, tokenPrice.getPrice());
-                        } else {
-                            log.debug("No subscriber found for symbol: {}", symbol);
-                        }
-                    })
-                    .doOnError(error -> log.error("Failed to fetch price {}", error.getMessage()))
-                    .subscribe();
+        if (!fetchInProgress.compareAndSet(false, true)) {
+            log.warn("Previous DexScreener update cycle still running. Skipping this one.");
+            return;
         }
+        fetchChunks(chunks)
+                .doFinally(signal -> fetchInProgress.set(false))
+                .subscribe();
     }
 
-    private void checkAndResetRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long timeElapsed = currentTime - currentMinuteStartTime;
-
-        // Reset counter if a minute has passed
-        if (timeElapsed >= 60000) { // 60 seconds in milliseconds
-            log.debug("Resetting rate limit counter for DexScreener. Previous count: {}", apiCallsInCurrentMinute.get());
-            apiCallsInCurrentMinute.set(0);
-            currentMinuteStartTime = currentTime;
+    /**
+     * Fetches the tokens whose adaptive refresh interval has passed. Due tokens are grouped by chain
+     * and chunked, most overdue first; every chunk takes one call from the polling budget, and the
+     * chunks that get none stay due for the next tick.
+     */
+    @Scheduled(fixedDelayString = "${polling.adaptive.tick:500}")
+    public void pollDuePrices() {
+        if (!pollingPlanner.isEnabled()) {
+            return;
         }
+        long now = System.currentTimeMillis();
+        int[] due = pollingBudget.due(now);
+        if (due.length == 0) {
+            return;
+        }
+        Map<String, List<Integer>> dueByChain = new LinkedHashMap<>();
+        for (int item : due) {
+            dueByChain.computeIfAbsent(pollingChains.get(item), chain -> new ArrayList<>()).add(item);
+        }
+        int chunkSize = Math.max(1, maxAddressesPerRequest);
+        List<Chunk> dueChunks = new ArrayList<>();
+        dueByChain.forEach((chainId, items) -> {
+            for (int from = 0; from < items.size(); from += chunkSize) {
+                if (!pollingBudget.tryAcquireCall()) {
+                    return;
+                }
+                List<DexscreenerProperties.Token> tokens = new ArrayList<>();
+                for (int item : items.subList(from, Math.min(items.size(), from + chunkSize))) {
+                    pollingBudget.polled(item, now);
+                    tokens.add(pollingTokens.get(item));
+                }
+                dueChunks.add(new Chunk(chainId, tokens, chunkLatency(chainId)));
+            }
+        });
+        fetchChunks(dueChunks).subscribe();
+    }
+
+    private Flux<TokenPrice> fetchChunks(List<Chunk> requests) {
+        // Pacing (dexscreener.api.calls-per-minute) is enforced by the rate limit filter of dexClient
+        return Flux.fromIterable(requests)
+                .flatMap(this::fetchTokenPrice, Math.max(1, concurrency))
+                .doOnNext(tokenPrice -> {
+                    String symbol = tokenPrice.getSymbol(); // пример: RFC_USDT
+                    int symbolId = symbolRegistry.id(symbol);
+                    // Addresses are shared with other venues, so a pair may resolve to a symbol not polled here
+                    PriceSink sink = symbolId >= 0 ? priceSinks.get(symbolId) : null;
+                    if (sink != null) {
+                        pollingBudget.observe(symbolId, tokenPrice);
+                        sink.emit(tokenPrice);
+                        log.debug("DexScreener price update for {}: {}", symbol, tokenPrice.getPrice());
+                    }
+                })
+                .doOnError(error -> log.error("Failed to fetch price {}", error.getMessage()));
     }
 
     /**
-     * Fetches token price from DexScreener API
+     * Fetches the prices of one chunk of tokens from DexScreener API. The response is decoded as
+     * it streams in, so each price is emitted as soon as its pair object is complete.
      *
-     * @param tokens The token symbol to fetch price for
-     * @return Mono with token price information
+     * @return Flux with the prices of the chunk, empty on failure
      */
-    private Mono<List<TokenPrice>> fetchTokenPrice(String chainId, List<DexscreenerProperties.Token> tokens) {
-        log.info("Fetching prices for symbols: {}",
-                tokens.stream().map(DexscreenerProperties.Token::getSymbol).collect(Collectors.joining(", ")));
-
-        return dexClient.get()
-                .uri(buildRequestUri(chainId, tokens))
-                .retrieve()
-                .bodyToMono(String.class)
+    private Flux<TokenPrice> fetchTokenPrice(Chunk chunk) {
+        log.info("Fetching prices on {} for symbols: {}", chunk.chainId(),
+                chunk.tokens().stream().map(DexscreenerProperties.Token::getSymbol).collect(Collectors.joining(", ")));
+
+        return Flux.defer(() -> {
+                    long start = System.nanoTime();
+                    return StreamingJsonDecoder.decode(
+                                    dexClient.get()
+                                            .uri(buildRequestUri(chunk.chainId(), chunk.tokens()))
+                                            .retrieve()
+                                            .bodyToFlux(DataBuffer.class),
+                                    () -> new DexScreenerPairDecoder(symbolRegistry))
+                            .doOnComplete(() -> chunk.latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                })
                 .retryWhen(createRetrySpec())
-                .map(this::parseResponse)
                 .onErrorResume(error -> {
+                    if (error instanceof RateLimitExceededException) {
+                        log.warn("Rate limit reached. Skipping this update cycle for {} DexScreener tokens on chain {}.",
+                                chunk.tokens().size(), chunk.chainId());
+                        return Flux.empty();
+                    }
                     log.error("Error fetching price from DexScreener for {}", error.getMessage());
-                    return Mono.just(Collections.emptyList());
+                    return Flux.empty();
                 });
     }
 
@@ -180,8 +293,8 @@ public class DexScreenerClient {
                     (org.springframework.web.reactive.function.client.WebClientResponseException) throwable;
             int statusCode = wcre.getStatusCode().value();
 
-            // Retry on rate limiting (429) and server errors (5xx)
-            boolean shouldRetry = statusCode == 429 || (statusCode >= 500 && statusCode < 600);
+            // Retry on server errors (5xx); 429 is retried by the rate limit filter after Retry-After
+            boolean shouldRetry = statusCode >= 500 && statusCode < 600;
 
             if (shouldRetry) {
                 log.warn("Received status code {} from DexScreener API. Will retry.", statusCode);
@@ -193,48 +306,8 @@ public class DexScreenerClient {
     }
 
     /**
-     * Parses the API response to extract token price
-     */
-    private List<TokenPrice> parseResponse(String responseBody) {
-        try {
-            List<TokenPrice> prices = new ArrayList<>();
-
-            JsonNode rootNode = objectMapper.readTree(responseBody);
-            if (!rootNode.isArray() || rootNode.isEmpty()) {
-                log.warn("Empty or invalid DexScreener response");
-                return Collections.emptyList();
-            }
-            for (JsonNode pair : rootNode) {
-                String pairSymbol = pair.get("baseToken").get("symbol").asText() + "_USDT"; // Standardize pair name
-                BigDecimal price = extractPrice(pair);
-
-                TokenPrice tokenPrice = TokenPrice.builder()
-                        .symbol(pairSymbol)
-                        .price(price)
-                        .exchange("DEXScreener")
-                        .timestamp(Instant.now())
-                        .build();
-
-                prices.add(tokenPrice);
-            }
-
-            return prices;
-
-        } catch (Exception e) {
-            log.error("Error parsing DexScreener response {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to parse DexScreener response", e);
-        }
-    }
-
-    /**
-     * Extracts the price from a pair node
+     * Addresses of one chain fetched in a single request
      */
-    private BigDecimal extractPrice(JsonNode pairNode) {
-        if (pairNode.has("priceUsd")) {
-            return new BigDecimal(pairNode.get("priceUsd").asText("0"));
-        } else {
-            // Fallback to regular price if USD price is not available
-            return new BigDecimal(pairNode.get("price").asText("0"));
-        }
+    private record Chunk(String chainId, List<DexscreenerProperties.Token> tokens, Timer latency) {
     }
 }
@@ -1,155 +1,361 @@
 package trader.arbitrage.client;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.socket.WebSocketHandler;
-import org.springframework.web.reactive.socket.WebSocketMessage;
-import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.LoopResources;
+import trader.arbitrage.client.mexc.MexcDepthUpdate;
+import trader.arbitrage.client.mexc.MexcFrameDecoder;
+import trader.arbitrage.client.mexc.MexcOrderBook;
+import trader.arbitrage.client.mexc.MexcOrderBooks;
+import trader.arbitrage.client.mexc.MexcSessionShard;
+import trader.arbitrage.client.mexc.MexcTicker;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceSink;
+import trader.arbitrage.service.stream.PriceStreams;
 
 import java.math.BigDecimal;
 import java.net.URI;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * MEXC contract ticker feed. The symbol universe is sharded across up to
+ * {@code mexc.ws.connections} WebSocket sessions, each running on its own event loop.
+ * Whenever a session is (re)established its symbols are refreshed from the REST ticker snapshot.
+ * With {@code mexc.depth.enabled} the sessions also feed the L2 books in {@link MexcOrderBooks}.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class MexcWebSocketClient implements WebSocketHandler {
+public class MexcWebSocketClient {
 
-    private final ObjectMapper objectMapper;
-    private final Map<String, Sinks.Many<TokenPrice>> tokenPriceSinks = new ConcurrentHashMap<>();
-    private final ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
-    private WebSocketSession session;
     private final String wsUrl = "wss://contract.mexc.com/edge";
     private final List<String> tokens;
+    private final MeterRegistry registry;
+    private final WebClient mexcRestClient;
+    private final ObjectMapper objectMapper;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceStreams priceStreams;
+    private final MexcOrderBooks orderBooks;
 
-    public void connect() {
-        log.info("Connecting to MEXC WebSocket... {}", wsUrl);
-        URI uri = URI.create(wsUrl);
+    @Value("${mexc.ws.connections:1}")
+    private int maxConnections;
 
-        client.execute(uri, this)
-                .subscribe(
-                        success -> log.info("WebSocket connection established"),
-                        error -> {
-                            log.error("Error connecting to WebSocket: {}", error.getMessage());
-                            reconnect();
-                        },
-                        () -> {
-                            log.info("WebSocket connection closed");
-                            reconnect();
-                        }
-                );
+    @Value("${mexc.ws.reconnect.initial-backoff:500}")
+    private long initialBackoffMillis;
+
+    @Value("${mexc.ws.reconnect.max-backoff:30000}")
+    private long maxBackoffMillis;
+
+    // Indexed by symbol ID
+    private AtomicReferenceArray<PriceSink> tokenPriceSinks;
+    // Exchange timestamp of the newest price per symbol ID; keeps a late snapshot from overwriting a push
+    private AtomicLongArray lastPriceTimestamps;
+
+    private final List<MexcSessionShard> shards = new CopyOnWriteArrayList<>();
+    private final Set<String> assignedSymbols = new LinkedHashSet<>();
+    // Rebuilt copy-on-write whenever symbols are added; read by every shard on each frame
+    private volatile MexcFrameDecoder frameDecoder;
+    private LoopResources loopResources;
+    private ReactorNettyWebSocketClient client;
+    private boolean connected;
+
+    @PostConstruct
+    public void init() {
+        loopResources = LoopResources.create("mexc-ws", Math.max(1, maxConnections), true);
+        client = new ReactorNettyWebSocketClient(HttpClient.create().runOn(loopResources));
+        tokenPriceSinks = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        lastPriceTimestamps = new AtomicLongArray(symbolRegistry.capacity());
+        for (int i = 0; i < lastPriceTimestamps.length(); i++) {
+            lastPriceTimestamps.set(i, Long.MIN_VALUE);
+        }
+        frameDecoder = new MexcFrameDecoder(symbolRegistry, tokens);
     }
 
-    private void reconnect() {
-        log.info("Attempting to reconnect in 5 seconds...");
-        try {
-            Thread.sleep(5000);
-            connect();
-        } catch (InterruptedException e) {
-            log.error("Reconnection interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
+    public synchronized void connect() {
+        log.info("Connecting to MEXC WebSocket {} with up to {} connections", wsUrl, maxConnections);
+        addSymbols(tokens);
+        connected = true;
+        shards.forEach(MexcSessionShard::connect);
+    }
+
+    /**
+     * Adds symbols to the feed. New symbols go to the least loaded shard (opening a new
+     * connection while below {@code mexc.ws.connections}), then shards are rebalanced.
+     */
+    public synchronized void addSymbols(Collection<String> symbols) {
+        List<String> added = symbols.stream()
+                .filter(assignedSymbols::add)
+                .toList();
+        if (added.isEmpty()) {
+            return;
+        }
+        frameDecoder = new MexcFrameDecoder(symbolRegistry, assignedSymbols);
+
+        for (String symbol : added) {
+            int symbolId = symbolRegistry.register(symbol);
+            sinkOf(symbolId);
+            if (orderBooks.isEnabled()) {
+                orderBooks.bookOf(symbolId);
+            }
+            leastLoadedShard().addSymbol(symbol);
+        }
+        rebalance();
+        if (orderBooks.isEnabled()) {
+            loadContractSizes(Set.copyOf(added));
+        }
+    }
+
+    private MexcSessionShard leastLoadedShard() {
+        MexcSessionShard target = shards.stream()
+                .min(Comparator.comparingInt(MexcSessionShard::symbolCount))
+                .orElse(null);
+        if (target == null || (target.symbolCount() > 0 && shards.size() < maxConnections)) {
+            target = newShard();
+        }
+        return target;
+    }
+
+    private MexcSessionShard newShard() {
+        MexcSessionShard shard = new MexcSessionShard(
+                shards.size(),
+                URI.create(wsUrl),
+                client,
+                () -> frameDecoder,
+                this::handleTickerMessage,
+                orderBooks.isEnabled() ? this::handleDepthMessage : null,
+                this::loadSnapshot,
+                Duration.ofMillis(initialBackoffMillis),
+                Duration.ofMillis(maxBackoffMillis),
+                registry);
+        shards.add(shard);
+        if (connected) {
+            shard.connect();
         }
+        return shard;
     }
 
-    @Override
-    public Mono<Void> handle(WebSocketSession session) {
-        this.session = session;
+    /**
+     * Moves symbols from the most to the least loaded shard until they differ by at most one
+     */
+    private void rebalance() {
+        while (shards.size() > 1) {
+            MexcSessionShard max = shards.stream()
+                    .max(Comparator.comparingInt(MexcSessionShard::symbolCount))
+                    .orElseThrow();
+            MexcSessionShard min = shards.stream()
+                    .min(Comparator.comparingInt(MexcSessionShard::symbolCount))
+                    .orElseThrow();
+            if (max.symbolCount() - min.symbolCount() <= 1) {
+                return;
+            }
+            String symbol = max.getSymbols().iterator().next();
+            log.info("Rebalancing {} from shard {} to shard {}", symbol, max.getId(), min.getId());
+            max.removeSymbol(symbol);
+            min.addSymbol(symbol);
+        }
+    }
 
-        subscribeToTokens();
+    private void handleTickerMessage(MexcTicker ticker) {
+        if (!ticker.isComplete()) {
+            log.debug("Skipping incomplete ticker for symbol: {}", ticker.getSymbol());
+            return;
+        }
+        long timestamp = ticker.getTimestamp() >= 0 ? ticker.getTimestamp() : System.currentTimeMillis();
+        publishPrice(ticker.getSymbolId(), TokenPrice.builder()
+                .symbol(ticker.getSymbol())
+                .priceMantissa(ticker.getPriceMantissa())
+                .priceScale(ticker.getPriceScale())
+                .exchange(Venue.MEXC.exchangeName())
+                .timestamp(Instant.ofEpochMilli(timestamp))
+                .build());
+    }
 
-        setupPingScheduler();
+    /**
+     * Applies a depth delta on the shard's event loop; a book that lost sync is refilled from REST
+     */
+    private void handleDepthMessage(MexcDepthUpdate update) {
+        if (!update.isComplete()) {
+            return;
+        }
+        if (!orderBooks.apply(update)) {
+            requestDepthSnapshot(orderBooks.get(update.getSymbolId()));
+        }
+    }
 
-        return session.receive()
-                .doOnNext(this::handleMessage)
-                .then();
+    private void requestDepthSnapshot(MexcOrderBook book) {
+        if (book == null || !book.markSnapshotPending()) {
+            return;
+        }
+        String symbol = book.getSymbol();
+        log.info("Loading MEXC depth snapshot for {}", symbol);
+        mexcRestClient.get()
+                .uri("/api/v1/contract/depth/{symbol}", symbol)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .map(body -> {
+                    MexcDepthUpdate snapshot = new MexcDepthUpdate();
+                    frameDecoder.decodeDepthSnapshot(DefaultDataBufferFactory.sharedInstance.wrap(body), snapshot);
+                    return orderBooks.loadSnapshot(book.getSymbolId(), snapshot);
+                })
+                .doFinally(signal -> book.clearSnapshotPending())
+                .subscribe(
+                        synced -> {
+                            if (!synced) {
+                                log.debug("MEXC depth snapshot for {} is behind the buffered deltas", symbol);
+                            }
+                        },
+                        error -> log.warn("Failed to load MEXC depth snapshot for {}: {}", symbol, error.getMessage())
+                );
     }
 
-    private void handleMessage(WebSocketMessage message) {
-        String payload = message.getPayloadAsText();
-        log.debug("Received message: {}", payload);
+    /**
+     * Loads contract sizes so book volumes (in contracts) can be turned into base asset quantities
+     */
+    private void loadContractSizes(Set<String> symbols) {
+        mexcRestClient.get()
+                .uri("/api/v1/contract/detail")
+                .retrieve()
+                .bodyToMono(String.class)
+                .subscribe(
+                        body -> applyContractSizes(body, symbols),
+                        error -> log.warn("Failed to load MEXC contract details: {}", error.getMessage())
+                );
+    }
 
+    private void applyContractSizes(String body, Set<String> symbols) {
         try {
-            JsonNode rootNode = objectMapper.readTree(payload);
-            String channel = rootNode.path("channel").asText();
-
-            if ("push.ticker".equals(channel)) {
-                handleTickerMessage(payload, rootNode);
-            } else if ("pong".equals(channel)) {
-                log.debug("Received pong response");
+            for (JsonNode contract : objectMapper.readTree(body).path("data")) {
+                String symbol = contract.path("symbol").asText();
+                double contractSize = contract.path("contractSize").asDouble(0);
+                MexcOrderBook book = orderBooks.get(symbolRegistry.id(symbol));
+                if (book != null && contractSize > 0 && symbols.contains(symbol)) {
+                    book.setContractSize(contractSize);
+                }
             }
-        } catch (JsonProcessingException e) {
-            log.error("Error parsing message: {}", e.getMessage());
+        } catch (Exception e) {
+            log.warn("Failed to parse MEXC contract details: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the REST ticker snapshot and publishes prices for the given symbols
+     *
+     * @return number of symbols refreshed
+     */
+    private Mono<Integer> loadSnapshot(Set<String> symbols) {
+        if (symbols.isEmpty()) {
+            return Mono.just(0);
         }
+        return mexcRestClient.get()
+                .uri("/api/v1/contract/ticker")
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> publishSnapshot(body, symbols));
     }
 
-    private void handleTickerMessage(String payload, JsonNode rootNode) {
+    private int publishSnapshot(String body, Set<String> symbols) {
         try {
-            JsonNode data = rootNode.path("data");
-            String symbol = data.path("symbol").asText();
-
-            TokenPrice price = TokenPrice.builder()
-                    .symbol(symbol)
-                    .price(new BigDecimal(data.path("lastPrice").asText("0")))
-                    .exchange("MEXC")
-                    .timestamp(Instant.ofEpochMilli(data.path("timestamp").asLong(System.currentTimeMillis())))
-                    .build();
-            Sinks.Many<TokenPrice> sink = tokenPriceSinks.get(symbol);
-            if (sink != null) {
-                sink.tryEmitNext(price);
+            JsonNode data = objectMapper.readTree(body).path("data");
+            int published = 0;
+            for (JsonNode tickerNode : data) {
+                String symbol = tickerNode.path("symbol").asText();
+                if (!symbols.contains(symbol) || !tickerNode.hasNonNull("lastPrice")) {
+                    continue;
+                }
+                int symbolId = symbolRegistry.id(symbol);
+                long timestamp = tickerNode.path("timestamp").asLong(System.currentTimeMillis());
+                TokenPrice price = TokenPrice.builder()
+                        .symbol(symbolRegistry.symbol(symbolId))
+                        .price(new BigDecimal(tickerNode.get("lastPrice").asText()))
+                        .exchange(Venue.MEXC.exchangeName())
+                        .timestamp(Instant.ofEpochMilli(timestamp))
+                        .build();
+                if (publishPrice(symbolId, price)) {
+                    published++;
+                }
             }
-
-            log.debug("Processed ticker for symbol: {}", symbol);
+            return published;
         } catch (Exception e) {
-            log.error("Error processing ticker message: {}", e.getMessage());
+            throw new IllegalStateException("Failed to parse MEXC ticker snapshot", e);
         }
     }
 
-    private void subscribeToTokens() {
-        for (String token : tokens) {
-            log.info("Subscribing to token: {}", token);
-
-            tokenPriceSinks.computeIfAbsent(token,
-                    k -> Sinks.many().multicast().onBackpressureBuffer());
+    /**
+     * Emits a price unless a newer one for the symbol has already been published
+     */
+    private boolean publishPrice(int symbolId, TokenPrice price) {
+        long timestamp = price.getTimestamp().toEpochMilli();
+        if (!advance(symbolId, timestamp)) {
+            log.debug("Dropping stale price for {} at {}", price.getSymbol(), timestamp);
+            return false;
+        }
+        PriceSink sink = tokenPriceSinks.get(symbolId);
+        if (sink != null) {
+            sink.emit(price);
+        }
 
-            String subscribeMessage = String.format(
-                    "{\"method\":\"sub.ticker\",\"param\":{\"symbol\":\"%s\"}}", token);
+        log.debug("Processed ticker for symbol: {}", price.getSymbol());
+        return true;
+    }
 
-            session.send(Mono.just(session.textMessage(subscribeMessage)))
-                    .subscribe(
-                            null,
-                            error -> log.error("Error subscribing to {}: {}", token, error.getMessage())
-                    );
-        }
+    private boolean advance(int symbolId, long timestamp) {
+        long previous;
+        do {
+            previous = lastPriceTimestamps.get(symbolId);
+            if (timestamp < previous) {
+                return false;
+            }
+        } while (!lastPriceTimestamps.compareAndSet(symbolId, previous, timestamp));
+        return true;
     }
 
-    private void setupPingScheduler() {
-        Flux.interval(Duration.ofSeconds(15))
-                .flatMap(i -> session.send(Mono.just(session.textMessage("{\"method\":\"ping\"}"))))
-                .subscribe(
-                        null,
-                        error -> log.error("Error sending ping: {}", error.getMessage())
-                );
+    private PriceSink sinkOf(int symbolId) {
+        PriceSink sink = tokenPriceSinks.get(symbolId);
+        if (sink == null) {
+            tokenPriceSinks.compareAndSet(symbolId, null, priceStreams.create(Venue.MEXC, symbolRegistry.symbol(symbolId)));
+            sink = tokenPriceSinks.get(symbolId);
+        }
+        return sink;
     }
 
-    public Flux<TokenPrice> getTokenPriceStream(String token) {
-        return tokenPriceSinks.computeIfAbsent(token,
-                k -> Sinks.many().multicast().onBackpressureBuffer()).asFlux();
+    public Flux<TokenPrice> getPriceStream(String token, String consumer, DeliveryPolicy policy) {
+        return sinkOf(symbolRegistry.register(token)).asFlux(consumer, policy);
     }
 
     public List<String> getConfiguredTokens() {
         return tokens;
     }
-}
\ No newline at end of file
+
+    @PreDestroy
+    public void shutdown() {
+        shards.forEach(MexcSessionShard::stop);
+        if (loopResources != null) {
+            loopResources.dispose();
+        }
+    }
+}
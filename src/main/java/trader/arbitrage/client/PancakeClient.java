@@ -1,27 +1,51 @@
 package trader.arbitrage.client;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.utils.Numeric;
 import org.web3j.tx.TransactionManager;
 import org.web3j.tx.gas.ContractGasProvider;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Mono;
 import trader.arbitrage.client.contracts.PancakeRouter02;
+import trader.arbitrage.client.pancake.Multicall3;
+import trader.arbitrage.client.pancake.PancakeImpactLadders;
+import trader.arbitrage.client.pancake.PancakePair;
+import trader.arbitrage.client.pancake.PancakeReserveTracker;
+import trader.arbitrage.client.pancake.PancakeRoute;
+import trader.arbitrage.client.pancake.PancakeRpc;
 import trader.arbitrage.config.PancakeProperties;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.priceservice.PriceBoard;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceSink;
+import trader.arbitrage.service.stream.PriceStreams;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Service
 @Slf4j
@@ -31,9 +55,29 @@ public class PancakeClient {
     private final TransactionManager txManager;
     private final ContractGasProvider gasProvider;
     private final PancakeProperties props;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceStreams priceStreams;
+    private final PancakeReserveTracker reserveTracker;
+    private final PancakeImpactLadders impactLadders;
+    private final PancakeRpc rpc;
+    private final PriceBoard priceBoard;
 
     private PancakeRouter02 router;
-    private final Map<String, Sinks.Many<TokenPrice>> streams = new ConcurrentHashMap<>();
+    // Indexed by symbol ID
+    private AtomicReferenceArray<PriceSink> streams;
+    // Configured tokens as parallel arrays, resolved once at startup
+    private int[] symbolIds;
+    private String[] tokenAddresses;
+    // Index of each quoted token in the multicall batch; the calldata never changes
+    private int[] quotedTokens;
+    private Transaction quoteBatch;
+    // Route of each configured token, priced from the tracked reserves
+    private PancakeRoute[] routes;
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
+    // Last block the prices have been published for
+    private final AtomicLong lastBlock = new AtomicLong(-1);
+    // Own thread rather than a bean: a ScheduledExecutorService bean would become the scheduler of every @Scheduled method
+    private ScheduledExecutorService blockScheduler;
 
     @PostConstruct
     public void init() {
@@ -43,46 +87,228 @@ public class PancakeClient {
                 txManager,
                 gasProvider
         );
-        props.getTokens().forEach((sym, addr) ->
-                streams.put(sym + "_USDT", Sinks.many().multicast().onBackpressureBuffer())
-        );
-        log.info("PancakeClient initialized for tokens: {}", props.getTokens().keySet());
-        log.info("Streams {} ", streams);
+        streams = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        symbolIds = new int[props.getTokens().size()];
+        tokenAddresses = new String[symbolIds.length];
+        int i = 0;
+        for (Map.Entry<String, String> token : props.getTokens().entrySet()) {
+            String symbol = SymbolRegistry.pairSymbol(token.getKey());
+            int symbolId = symbolRegistry.registerAddress(token.getValue(), symbol);
+            streams.set(symbolId, priceStreams.create(Venue.PANCAKE, symbol));
+            symbolIds[i] = symbolId;
+            tokenAddresses[i] = token.getValue();
+            i++;
+        }
+        if (isReservePricing()) {
+            routes = new PancakeRoute[symbolIds.length];
+            for (int t = 0; t < symbolIds.length; t++) {
+                List<String> path = quotePath(tokenAddresses[t]);
+                if (path.stream().noneMatch(String::isEmpty)) {
+                    routes[t] = reserveTracker.register(path);
+                }
+            }
+        } else {
+            createQuoteBatch();
+        }
+        blockScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("pancake-blocks").daemon().factory());
+        blockScheduler.scheduleWithFixedDelay(
+                this::followBlocks, 0, props.getBlockPollInterval(), TimeUnit.MILLISECONDS);
+        log.info("PancakeClient initialized for tokens: {} ({} pricing)", props.getTokens().keySet(), props.getPricing());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (blockScheduler != null) {
+            blockScheduler.shutdownNow();
+        }
     }
 
-    @Scheduled(fixedRateString = "${pancake.update-interval}")
-    public void fetchPrices() {
-        streams.forEach((symbol, sink) -> {
+    /**
+     * Encodes the {@code getAmountsOut} quote of every token into one Multicall3 {@code aggregate3} call
+     */
+    private void createQuoteBatch() {
+        List<Multicall3.Call> calls = new ArrayList<>();
+        List<Integer> quoted = new ArrayList<>();
+        for (int i = 0; i < symbolIds.length; i++) {
+            List<String> path = quotePath(tokenAddresses[i]);
+            if (path.stream().anyMatch(e -> e == null || e.isEmpty())) {
+                log.error("Invalid path for price fetch of {}: {}", symbolRegistry.symbol(symbolIds[i]), path);
+                continue;
+            }
             try {
-                String tokenSym = symbol.replace("_USDT", "");
-                String tokenAddr = props.getTokens().get(tokenSym);
+                calls.add(new Multicall3.Call(
+                        props.getRouterAddress(),
+                        true, // one illiquid path must not fail the whole batch
+                        Multicall3.encodeGetAmountsOut(BigInteger.TEN.pow(18), path))); // 1 токен в 18 знаках
+                quoted.add(i);
+            } catch (RuntimeException e) {
+                log.error("Invalid token address for symbol {}: {}", symbolRegistry.symbol(symbolIds[i]), e.getMessage());
+            }
+        }
+        quotedTokens = quoted.stream().mapToInt(Integer::intValue).toArray();
+        quoteBatch = Transaction.createEthCallTransaction(
+                null,
+                props.getMulticallAddress(),
+                Numeric.toHexString(Multicall3.encodeAggregate3(calls)));
+    }
 
-                if (tokenAddr == null || tokenAddr.isEmpty()) {
-                    log.error("Invalid token address for symbol: {}", tokenSym);
-                    return;
-                }
+    private List<String> quotePath(String tokenAddress) {
+        return List.of(
+                tokenAddress != null ? tokenAddress : "",
+                props.getWrappedBnb() != null ? props.getWrappedBnb() : "",
+                props.getBusd() != null ? props.getBusd() : ""
+        );
+    }
 
-                BigDecimal price = fetchPrice(tokenAddr);
+    private boolean isReservePricing() {
+        return "reserves".equalsIgnoreCase(props.getPricing());
+    }
 
-                if (price == null) {
-                    log.error("Price for token {} could not be fetched", tokenSym);
-                    return;
+    /**
+     * Polls the chain head and refreshes the prices once per new block, at that block. A tick only
+     * costs an {@code eth_blockNumber} while the head stays put or the previous refresh is still
+     * waiting for the node.
+     */
+    private void followBlocks() {
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            log.debug("Previous Pancake refresh still in flight, skipping");
+            return;
+        }
+        rpc.send(web3j.ethBlockNumber())
+                .map(response -> response.getBlockNumber().longValueExact())
+                .filter(head -> head > lastBlock.get())
+                .flatMap(head -> isReservePricing()
+                        // The tracker may stop short of the head after a long gap and catches up on the next ticks
+                        ? reserveTracker.refresh(head)
+                                .doOnNext(this::publishRoutePrices)
+                                .then(Mono.fromSupplier(() -> caughtUp(head)))
+                        : quote(head).thenReturn(head))
+                .doFinally(signal -> refreshInProgress.set(false))
+                .subscribe(
+                        lastBlock::set,
+                        error -> log.error("Error refreshing Pancake prices: {}", error.getMessage(), error)
+                );
+    }
+
+    /**
+     * Republishes the prices and impact ladders of the tokens whose route goes through a changed
+     * pair; a quiet pool costs no quote
+     */
+    private void publishRoutePrices(Set<PancakePair> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (int i = 0; i < routes.length; i++) {
+            PancakeRoute route = routes[i];
+            if (route == null || !changed.stream().anyMatch(route::uses)) {
+                continue;
+            }
+            String symbol = symbolRegistry.symbol(symbolIds[i]);
+            BigInteger amountOut = route.amountOut(BigInteger.TEN.pow(18)); // 1 токен в 18 знаках
+            if (amountOut == null || amountOut.signum() <= 0) {
+                log.error("Price for token {} could not be computed from reserves", symbol);
+                continue;
+            }
+            BigDecimal price = new BigDecimal(amountOut)
+                    .divide(BigDecimal.TEN.pow(18), 8, RoundingMode.HALF_UP);
+            // Before the price, so a detector woken by the tick sees the ladder of the same block
+            impactLadders.update(symbolIds[i], route);
+            streams.get(symbolIds[i]).emit(TokenPrice.builder()
+                    .symbol(symbol)
+                    .price(price)
+                    .exchange(Venue.PANCAKE.exchangeName())
+                    .timestamp(now)
+                    .build());
+            log.debug("Pancake price [{}] at block {}: {}", symbol, route.blockNumber(), price);
+        }
+    }
+
+    /**
+     * Quotes all tokens at {@code block} with a single {@code eth_call} to Multicall3. Only used with
+     * {@code pancake.pricing=quote}.
+     */
+    private Mono<Void> quote(long block) {
+        if (quotedTokens.length == 0) {
+            return Mono.empty();
+        }
+        return rpc.send(web3j.ethCall(quoteBatch, DefaultBlockParameter.valueOf(BigInteger.valueOf(block))))
+                .doOnNext(response -> publishQuotes(response, block))
+                .then();
+    }
+
+    /**
+     * @return {@code head} once the tracker has reached its confirmed block, so the head is not
+     * refreshed again; otherwise the block the tracker stopped at
+     */
+    private long caughtUp(long head) {
+        long block = reserveTracker.getLastBlock();
+        if (block < 0 || block < reserveTracker.confirmedBlock(head)) {
+            return block;
+        }
+        confirmPrices();
+        return head;
+    }
+
+    /**
+     * Marks every Pancake price as current; detection skips them once this is older than {@code pancake.stale-after}
+     */
+    private void confirmPrices() {
+        priceBoard.confirmVenue(Venue.PANCAKE, System.currentTimeMillis(), props.getStaleAfter());
+    }
+
+    private void publishQuotes(EthCall response, long block) {
+        if (response.hasError() || response.isReverted()) {
+            log.error("Pancake multicall failed: {}", response.hasError()
+                    ? response.getError().getMessage()
+                    : response.getRevertReason());
+            return;
+        }
+        Multicall3.Result[] results;
+        try {
+            results = Multicall3.decodeAggregate3(Numeric.hexStringToByteArray(response.getValue()));
+        } catch (RuntimeException e) {
+            log.error("Malformed Pancake multicall response: {}", e.getMessage());
+            return;
+        }
+        if (results.length != quotedTokens.length) {
+            log.error("Pancake multicall returned {} results for {} calls", results.length, quotedTokens.length);
+            return;
+        }
+        confirmPrices();
+        Instant now = Instant.now();
+        for (int call = 0; call < results.length; call++) {
+            int i = quotedTokens[call];
+            String symbol = symbolRegistry.symbol(symbolIds[i]);
+            try {
+                BigInteger amountOut = results[call].success()
+                        ? Multicall3.decodeLastUint256(results[call].returnData())
+                        : null;
+                if (amountOut == null || amountOut.signum() <= 0) {
+                    log.error("Price for token {} could not be fetched", symbol);
+                    continue;
                 }
+                BigDecimal price = new BigDecimal(amountOut)
+                        .divide(BigDecimal.TEN.pow(18), 8, RoundingMode.HALF_UP);
 
                 TokenPrice tp = TokenPrice.builder()
                         .symbol(symbol)
                         .price(price)
-                        .exchange("Pancake")
-                        .timestamp(Instant.now())
+                        .exchange(Venue.PANCAKE.exchangeName())
+                        .timestamp(now)
                         .build();
-                sink.tryEmitNext(tp);
-                log.debug("Pancake price [{}]: {}", symbol, price);
+                streams.get(symbolIds[i]).emit(tp);
+                log.debug("Pancake price [{}] at block {}: {}", symbol, block, price);
             } catch (Exception e) {
-                log.error("Error fetching price for {}: {}", symbol, e.getMessage(), e);
+                log.error("Error decoding price for {}: {}", symbol, e.getMessage(), e);
             }
-        });
+        }
     }
 
+    /**
+     * Quotes a single token through the router with its own {@code eth_call}
+     */
     public BigDecimal fetchPrice(String tokenAddress) throws Exception {
         try {
             List<String> path = List.of(
@@ -127,14 +353,22 @@ public class PancakeClient {
         }
     }
 
-    public Map<String, Sinks.Many<TokenPrice>> getStreams() {
-        return Collections.unmodifiableMap(streams);
+    public Map<String, PriceSink> getStreams() {
+        Map<String, PriceSink> bySymbol = new LinkedHashMap<>();
+        for (int symbolId : symbolIds) {
+            bySymbol.put(symbolRegistry.symbol(symbolId), streams.get(symbolId));
+        }
+        return Collections.unmodifiableMap(bySymbol);
     }
 
 
-    public Flux<TokenPrice> getPriceStream(String symbol) {
-        Sinks.Many<TokenPrice> sink = streams.get(symbol);
-        return sink != null ? sink.asFlux() : Flux.empty();
+    public Flux<TokenPrice> getPriceStream(String symbol, String consumer, DeliveryPolicy policy) {
+        return getPriceStream(symbolRegistry.id(symbol), consumer, policy);
+    }
+
+    public Flux<TokenPrice> getPriceStream(int symbolId, String consumer, DeliveryPolicy policy) {
+        PriceSink sink = symbolId >= 0 ? streams.get(symbolId) : null;
+        return sink != null ? sink.asFlux(consumer, policy) : Flux.empty();
     }
 }
 
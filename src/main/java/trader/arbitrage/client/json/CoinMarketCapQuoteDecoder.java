@@ -0,0 +1,100 @@
+package trader.arbitrage.client.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Streams {@code /v1/cryptocurrency/quotes/latest}: emits a price as soon as
+ * {@code data.<SYMBOL>.quote.USD.price} is read. A non-zero {@code status.error_code} or a
+ * response without {@code data} fails the stream once the body is complete.
+ */
+@Slf4j
+public class CoinMarketCapQuoteDecoder extends StreamingJsonDecoder<TokenPrice> {
+
+    private final SymbolRegistry symbolRegistry;
+
+    private boolean dataSeen;
+    private int errorCode;
+    private String errorMessage;
+
+    public CoinMarketCapQuoteDecoder(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    @Override
+    protected void onToken(JsonToken token, JsonParser parser) {
+        if (token == JsonToken.FIELD_NAME || token.isStructEnd()) {
+            return;
+        }
+        String field = fieldName(parser, 0);
+        if (field == null) {
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            dataSeen |= "data".equals(field) && fieldName(parser, 1) == null;
+        } else if ("price".equals(field)) {
+            onPrice(token, parser);
+        } else if ("status".equals(fieldName(parser, 1)) && fieldName(parser, 2) == null) {
+            onStatus(field, token, parser);
+        }
+    }
+
+    private void onPrice(JsonToken token, JsonParser parser) {
+        if (!"USD".equals(fieldName(parser, 1))
+                || !"quote".equals(fieldName(parser, 2))
+                || !"data".equals(fieldName(parser, 4))
+                || fieldName(parser, 5) != null
+                || !(token.isNumeric() || token == JsonToken.VALUE_STRING)) {
+            return;
+        }
+        String baseAsset = fieldName(parser, 3);
+        int symbolId = symbolRegistry.idOfBase(baseAsset);
+        if (symbolId < 0) {
+            log.debug("Skipping unknown CoinMarketCap symbol {}", baseAsset);
+            return;
+        }
+        BigDecimal price;
+        try {
+            price = token.isNumeric() ? parser.getDecimalValue() : new BigDecimal(parser.getText());
+        } catch (Exception e) {
+            log.warn("Invalid CoinMarketCap price for {}: {}", baseAsset, e.getMessage());
+            return;
+        }
+        emit(TokenPrice.builder()
+                .symbol(symbolRegistry.symbol(symbolId))
+                .price(price)
+                .exchange(Venue.COIN_MARKET_CAP.exchangeName())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    private void onStatus(String field, JsonToken token, JsonParser parser) {
+        try {
+            if ("error_code".equals(field) && token.isNumeric()) {
+                errorCode = parser.getIntValue();
+            } else if ("error_message".equals(field) && token == JsonToken.VALUE_STRING) {
+                errorMessage = parser.getText();
+            }
+        } catch (Exception e) {
+            log.debug("Unreadable CoinMarketCap status field {}: {}", field, e.getMessage());
+        }
+    }
+
+    @Override
+    protected void onEndOfInput() {
+        if (errorCode != 0) {
+            throw new RuntimeException("API Error: "
+                    + (errorMessage != null ? errorMessage : "Unknown error in CoinMarketCap response"));
+        }
+        if (!dataSeen) {
+            throw new RuntimeException("Missing data in CoinMarketCap response");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package trader.arbitrage.client.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Streams the pair array of {@code /tokens/v1/{chainId}/{addresses}}: emits a price when a pair
+ * object closes. Pairs are resolved by {@code baseToken.address}, not by the symbol DexScreener
+ * reports; {@code priceUsd} is preferred over {@code price}.
+ */
+@Slf4j
+public class DexScreenerPairDecoder extends StreamingJsonDecoder<TokenPrice> {
+
+    // Nesting of the current token: 1 is the root array, 2 a pair object
+    private static final int PAIR_DEPTH = 2;
+
+    private final SymbolRegistry symbolRegistry;
+
+    private int depth;
+    private int pairs;
+    private boolean rootIsArray;
+    // State of the pair object being read
+    private String baseAddress;
+    private String pairAddress;
+    private String priceUsd;
+    private String price;
+
+    public DexScreenerPairDecoder(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+    }
+
+    @Override
+    protected void onToken(JsonToken token, JsonParser parser) throws IOException {
+        if (token.isStructStart()) {
+            if (++depth == 1) {
+                rootIsArray = token == JsonToken.START_ARRAY;
+            } else if (depth == PAIR_DEPTH && rootIsArray) {
+                baseAddress = null;
+                pairAddress = null;
+                priceUsd = null;
+                price = null;
+            }
+            return;
+        }
+        if (token.isStructEnd()) {
+            if (depth-- == PAIR_DEPTH && rootIsArray) {
+                pairs++;
+                onPair();
+            }
+            return;
+        }
+        if (token == JsonToken.FIELD_NAME || !rootIsArray || !token.isScalarValue()) {
+            return;
+        }
+        String field = fieldName(parser, 0);
+        if (field == null) {
+            return;
+        }
+        if (depth == PAIR_DEPTH) {
+            switch (field) {
+                case "priceUsd" -> priceUsd = parser.getText();
+                case "price" -> price = parser.getText();
+                case "pairAddress" -> pairAddress = parser.getText();
+                default -> {
+                }
+            }
+        } else if (depth == PAIR_DEPTH + 1 && "address".equals(field) && "baseToken".equals(fieldName(parser, 1))) {
+            baseAddress = parser.getText();
+        }
+    }
+
+    private void onPair() {
+        int symbolId = baseAddress != null ? symbolRegistry.idOfAddress(baseAddress) : -1;
+        if (symbolId < 0) {
+            log.debug("Skipping pair {} with unknown base token", pairAddress);
+            return;
+        }
+        String value = priceUsd != null ? priceUsd : price;
+        BigDecimal decimal;
+        try {
+            decimal = value != null ? new BigDecimal(value) : BigDecimal.ZERO;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid DexScreener price {} for pair {}", value, pairAddress);
+            return;
+        }
+        emit(TokenPrice.builder()
+                .symbol(symbolRegistry.symbol(symbolId))
+                .price(decimal)
+                .exchange(Venue.DEX_SCREENER.exchangeName())
+                .timestamp(Instant.now())
+                .build());
+    }
+
+    @Override
+    protected void onEndOfInput() {
+        if (!rootIsArray || pairs == 0) {
+            log.warn("Empty or invalid DexScreener response");
+        }
+    }
+}
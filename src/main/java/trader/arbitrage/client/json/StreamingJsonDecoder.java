@@ -0,0 +1,139 @@
+package trader.arbitrage.client.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Incremental JSON decoder on Jackson's non-blocking parser. Response bytes are fed buffer by
+ * buffer as they arrive; subclasses see one token at a time and emit a value as soon as the
+ * object holding it is complete. Neither the body String nor a JSON tree is ever built.
+ * <p>
+ * A decoder holds the state of one response and is not thread-safe; {@link #decode} creates a
+ * fresh one per subscription.
+ */
+public abstract class StreamingJsonDecoder<T> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final List<T> decoded = new ArrayList<>();
+
+    protected StreamingJsonDecoder() {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Decodes a body stream with a new decoder per subscription, releasing every buffer once parsed
+     */
+    public static <T> Flux<T> decode(Flux<DataBuffer> body, Supplier<? extends StreamingJsonDecoder<T>> decoders) {
+        return Flux.defer(() -> {
+            StreamingJsonDecoder<T> decoder = decoders.get();
+            return body.concatMapIterable(decoder::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.endOfInput())));
+        });
+    }
+
+    /**
+     * Parses the bytes of a buffer and releases it
+     *
+     * @return values completed by this buffer
+     */
+    public List<T> feed(DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer bytes = iterator.next();
+                feeder.feedInput(bytes);
+                // The parser reads from the fed buffer directly, so drain it before the next one
+                drain();
+            }
+            return takeDecoded();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed JSON response", e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Signals the end of the body
+     *
+     * @return values completed by the last bytes
+     */
+    public List<T> endOfInput() {
+        feeder.endOfInput();
+        try {
+            drain();
+            onEndOfInput();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed JSON response", e);
+        }
+        return takeDecoded();
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            onToken(token, parser);
+        }
+    }
+
+    private List<T> takeDecoded() {
+        if (decoded.isEmpty()) {
+            return List.of();
+        }
+        List<T> result = new ArrayList<>(decoded);
+        decoded.clear();
+        return result;
+    }
+
+    /**
+     * Called for every token in document order; the parser is positioned on the token
+     */
+    protected abstract void onToken(JsonToken token, JsonParser parser) throws IOException;
+
+    /**
+     * Called once the whole body has been parsed, e.g. to fail on a missing or erroneous part
+     */
+    protected void onEndOfInput() throws IOException {
+    }
+
+    protected void emit(T value) {
+        decoded.add(value);
+    }
+
+    /**
+     * Field name {@code levelsUp} levels above the current value; 0 is the field the value belongs to
+     *
+     * @return the field name, or null if that level is an array element or above the root
+     */
+    protected static String fieldName(JsonParser parser, int levelsUp) {
+        JsonStreamContext context = parser.getParsingContext();
+        // The context of a value token is the enclosing object; START_* tokens already opened their own
+        if (parser.currentToken() != null && parser.currentToken().isStructStart()) {
+            context = context.getParent();
+        }
+        for (int i = 0; i < levelsUp && context != null; i++) {
+            context = context.getParent();
+        }
+        return context != null && context.inObject() ? context.getCurrentName() : null;
+    }
+}
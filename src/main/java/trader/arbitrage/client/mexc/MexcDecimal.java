@@ -0,0 +1,10 @@
+package trader.arbitrage.client.mexc;
+
+/**
+ * Scratch fixed-point number the decoder parses into: {@code mantissa * 10^-scale}
+ */
+final class MexcDecimal {
+    long mantissa;
+    int scale;
+    boolean valid;
+}
@@ -0,0 +1,81 @@
+package trader.arbitrage.client.mexc;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Mutable holder for the levels of a MEXC push.depth frame (or a REST depth snapshot).
+ * Each level is a fixed-point price and volume (in contracts); a zero volume removes the level.
+ * One instance is reused per WebSocket session and its arrays only grow, so decoding does not
+ * allocate in steady state.
+ */
+@Getter
+public class MexcDepthUpdate {
+    private static final int INITIAL_LEVELS = 64;
+
+    String symbol;
+    int symbolId;
+    long version;
+
+    long[] askPriceMantissas = new long[INITIAL_LEVELS];
+    int[] askPriceScales = new int[INITIAL_LEVELS];
+    long[] askVolumeMantissas = new long[INITIAL_LEVELS];
+    int[] askVolumeScales = new int[INITIAL_LEVELS];
+    int askCount;
+
+    long[] bidPriceMantissas = new long[INITIAL_LEVELS];
+    int[] bidPriceScales = new int[INITIAL_LEVELS];
+    long[] bidVolumeMantissas = new long[INITIAL_LEVELS];
+    int[] bidVolumeScales = new int[INITIAL_LEVELS];
+    int bidCount;
+
+    @Getter(AccessLevel.NONE)
+    final MexcDecimal number = new MexcDecimal();
+
+    void reset() {
+        symbol = null;
+        symbolId = -1;
+        version = -1;
+        askCount = 0;
+        bidCount = 0;
+    }
+
+    void addLevel(boolean ask, long priceMantissa, int priceScale, long volumeMantissa, int volumeScale) {
+        if (ask) {
+            if (askCount == askPriceMantissas.length) {
+                int capacity = askCount * 2;
+                askPriceMantissas = Arrays.copyOf(askPriceMantissas, capacity);
+                askPriceScales = Arrays.copyOf(askPriceScales, capacity);
+                askVolumeMantissas = Arrays.copyOf(askVolumeMantissas, capacity);
+                askVolumeScales = Arrays.copyOf(askVolumeScales, capacity);
+            }
+            askPriceMantissas[askCount] = priceMantissa;
+            askPriceScales[askCount] = priceScale;
+            askVolumeMantissas[askCount] = volumeMantissa;
+            askVolumeScales[askCount] = volumeScale;
+            askCount++;
+        } else {
+            if (bidCount == bidPriceMantissas.length) {
+                int capacity = bidCount * 2;
+                bidPriceMantissas = Arrays.copyOf(bidPriceMantissas, capacity);
+                bidPriceScales = Arrays.copyOf(bidPriceScales, capacity);
+                bidVolumeMantissas = Arrays.copyOf(bidVolumeMantissas, capacity);
+                bidVolumeScales = Arrays.copyOf(bidVolumeScales, capacity);
+            }
+            bidPriceMantissas[bidCount] = priceMantissa;
+            bidPriceScales[bidCount] = priceScale;
+            bidVolumeMantissas[bidCount] = volumeMantissa;
+            bidVolumeScales[bidCount] = volumeScale;
+            bidCount++;
+        }
+    }
+
+    /**
+     * @return true if this is a depth update for a known symbol with a sequence number
+     */
+    public boolean isComplete() {
+        return symbol != null && version >= 0;
+    }
+}
@@ -0,0 +1,388 @@
+package trader.arbitrage.client.mexc;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Streaming decoder for MEXC contract WebSocket frames.
+ * <p>
+ * Scans the frame bytes in place and extracts only {@code channel}, {@code symbol},
+ * {@code lastPrice} and {@code timestamp} of tickers and the {@code asks}, {@code bids} and
+ * {@code version} of depth updates: no payload String, no JSON tree, no BigDecimal.
+ * Symbols are resolved against the configured tokens to their {@link SymbolRegistry} ID and
+ * interned String; unknown symbols are ignored.
+ * <p>
+ * The decoder is immutable after construction and can be shared between sessions.
+ */
+public class MexcFrameDecoder {
+
+    public static final int CHANNEL_UNKNOWN = 0;
+    public static final int CHANNEL_TICKER = 1;
+    public static final int CHANNEL_PONG = 2;
+    public static final int CHANNEL_DEPTH = 3;
+
+    private static final byte[] KEY_CHANNEL = ascii("channel");
+    private static final byte[] KEY_SYMBOL = ascii("symbol");
+    private static final byte[] KEY_LAST_PRICE = ascii("lastPrice");
+    private static final byte[] KEY_TIMESTAMP = ascii("timestamp");
+    private static final byte[] KEY_ASKS = ascii("asks");
+    private static final byte[] KEY_BIDS = ascii("bids");
+    private static final byte[] KEY_VERSION = ascii("version");
+    private static final byte[] VALUE_TICKER = ascii("push.ticker");
+    private static final byte[] VALUE_DEPTH = ascii("push.depth");
+    private static final byte[] VALUE_PONG = ascii("pong");
+
+    private static final long MANTISSA_LIMIT = Long.MAX_VALUE / 10;
+
+    // Open-addressing table: known symbol bytes -> symbol String and ID
+    private final byte[][] symbolBytes;
+    private final String[] symbols;
+    private final int[] symbolIds;
+    private final int mask;
+
+    public MexcFrameDecoder(SymbolRegistry symbolRegistry, Collection<String> knownSymbols) {
+        int capacity = Integer.highestOneBit(Math.max(4, knownSymbols.size() * 4) - 1) << 1;
+        this.symbolBytes = new byte[capacity][];
+        this.symbols = new String[capacity];
+        this.symbolIds = new int[capacity];
+        this.mask = capacity - 1;
+        for (String symbol : knownSymbols) {
+            byte[] bytes = ascii(symbol);
+            int slot = hash(bytes, 0, bytes.length) & mask;
+            while (symbols[slot] != null && !symbols[slot].equals(symbol)) {
+                slot = (slot + 1) & mask;
+            }
+            int symbolId = symbolRegistry.register(symbol);
+            symbolBytes[slot] = bytes;
+            symbols[slot] = symbolRegistry.symbol(symbolId);
+            symbolIds[slot] = symbolId;
+        }
+    }
+
+    /**
+     * Decodes a frame into the given holder
+     *
+     * @return the channel of the frame, one of the {@code CHANNEL_*} constants
+     */
+    public int decode(DataBuffer buffer, MexcTicker out) {
+        return decode(buffer, out, null);
+    }
+
+    /**
+     * Decodes a frame; the levels of a depth frame go into {@code depth}, its channel and symbol into {@code out}
+     *
+     * @return the channel of the frame, one of the {@code CHANNEL_*} constants
+     */
+    public int decode(DataBuffer buffer, MexcTicker out, MexcDepthUpdate depth) {
+        int start = buffer.readPosition();
+        out.reset();
+        if (depth != null) {
+            depth.reset();
+        }
+        decode(buffer, start, start + buffer.readableByteCount(), out, depth);
+        if (out.channel == CHANNEL_DEPTH && depth != null) {
+            depth.symbol = out.symbol;
+            depth.symbolId = out.symbolId;
+        }
+        return out.channel;
+    }
+
+    /**
+     * Decodes the {@code data} of a REST depth snapshot; the symbol is set by {@link MexcOrderBooks#loadSnapshot}
+     */
+    public void decodeDepthSnapshot(DataBuffer buffer, MexcDepthUpdate depth) {
+        int start = buffer.readPosition();
+        depth.reset();
+        decode(buffer, start, start + buffer.readableByteCount(), new MexcTicker(), depth);
+    }
+
+    private void decode(DataBuffer buf, int pos, int end, MexcTicker out, MexcDepthUpdate depth) {
+        while (pos < end) {
+            if (buf.getByte(pos) != '"') {
+                pos++;
+                continue;
+            }
+            int keyStart = pos + 1;
+            int keyEnd = skipString(buf, keyStart, end);
+            pos = skipWhitespace(buf, keyEnd + 1, end);
+            if (pos >= end || buf.getByte(pos) != ':') {
+                // A string value rather than a key
+                continue;
+            }
+            pos = skipWhitespace(buf, pos + 1, end);
+            if (pos >= end) {
+                break;
+            }
+
+            if (matches(buf, keyStart, keyEnd, KEY_CHANNEL)) {
+                pos = readChannel(buf, pos, end, out);
+            } else if (matches(buf, keyStart, keyEnd, KEY_SYMBOL)) {
+                pos = readSymbol(buf, pos, end, out);
+            } else if (matches(buf, keyStart, keyEnd, KEY_LAST_PRICE)) {
+                pos = readPrice(buf, pos, end, out);
+            } else if (matches(buf, keyStart, keyEnd, KEY_TIMESTAMP)) {
+                pos = readTimestamp(buf, pos, end, out);
+            } else if (depth != null && matches(buf, keyStart, keyEnd, KEY_ASKS)) {
+                pos = readLevels(buf, pos, end, depth, true);
+            } else if (depth != null && matches(buf, keyStart, keyEnd, KEY_BIDS)) {
+                pos = readLevels(buf, pos, end, depth, false);
+            } else if (depth != null && matches(buf, keyStart, keyEnd, KEY_VERSION)) {
+                pos = readDecimal(buf, pos, end, depth.number);
+                if (depth.number.valid && depth.number.scale == 0) {
+                    depth.version = depth.number.mantissa;
+                }
+            }
+        }
+    }
+
+    private int readChannel(DataBuffer buf, int pos, int end, MexcTicker out) {
+        if (pos >= end || buf.getByte(pos) != '"') {
+            return pos;
+        }
+        int valueEnd = skipString(buf, pos + 1, end);
+        if (matches(buf, pos + 1, valueEnd, VALUE_TICKER)) {
+            out.channel = CHANNEL_TICKER;
+        } else if (matches(buf, pos + 1, valueEnd, VALUE_DEPTH)) {
+            out.channel = CHANNEL_DEPTH;
+        } else if (matches(buf, pos + 1, valueEnd, VALUE_PONG)) {
+            out.channel = CHANNEL_PONG;
+        }
+        return valueEnd + 1;
+    }
+
+    private int readSymbol(DataBuffer buf, int pos, int end, MexcTicker out) {
+        if (pos >= end || buf.getByte(pos) != '"') {
+            return pos;
+        }
+        int valueStart = pos + 1;
+        int valueEnd = skipString(buf, valueStart, end);
+        int slot = lookupSlot(buf, valueStart, valueEnd);
+        if (slot >= 0) {
+            out.symbol = symbols[slot];
+            out.symbolId = symbolIds[slot];
+        }
+        return valueEnd + 1;
+    }
+
+    private int readPrice(DataBuffer buf, int pos, int end, MexcTicker out) {
+        pos = readDecimal(buf, pos, end, out.number);
+        if (out.number.valid) {
+            out.priceMantissa = out.number.mantissa;
+            out.priceScale = out.number.scale;
+            out.hasPrice = true;
+        }
+        return pos;
+    }
+
+    /**
+     * Parses an array of {@code [price, volume, orderCount]} levels
+     */
+    private int readLevels(DataBuffer buf, int pos, int end, MexcDepthUpdate depth, boolean ask) {
+        if (pos >= end || buf.getByte(pos) != '[') {
+            return pos;
+        }
+        pos++;
+        while (pos < end) {
+            pos = skipWhitespace(buf, pos, end);
+            if (pos >= end) {
+                break;
+            }
+            byte b = buf.getByte(pos);
+            if (b == ']') {
+                return pos + 1;
+            }
+            if (b != '[') {
+                // Separator between levels
+                pos++;
+                continue;
+            }
+            pos = skipWhitespace(buf, pos + 1, end);
+            pos = readDecimal(buf, pos, end, depth.number);
+            boolean validPrice = depth.number.valid;
+            long priceMantissa = depth.number.mantissa;
+            int priceScale = depth.number.scale;
+            pos = skipWhitespace(buf, pos, end);
+            if (pos < end && buf.getByte(pos) == ',') {
+                pos = skipWhitespace(buf, pos + 1, end);
+            }
+            pos = readDecimal(buf, pos, end, depth.number);
+            if (validPrice && depth.number.valid) {
+                depth.addLevel(ask, priceMantissa, priceScale, depth.number.mantissa, depth.number.scale);
+            }
+            // Skip the order count and anything else up to the end of the level
+            while (pos < end && buf.getByte(pos) != ']') {
+                pos++;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Parses a JSON number (optionally quoted) into mantissa and scale without rounding
+     */
+    private static int readDecimal(DataBuffer buf, int pos, int end, MexcDecimal out) {
+        out.valid = false;
+        if (pos >= end) {
+            // Truncated frame: the level ended before its number
+            return pos;
+        }
+        boolean quoted = buf.getByte(pos) == '"';
+        if (quoted) {
+            pos++;
+        }
+        boolean negative = false;
+        if (pos < end && buf.getByte(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; pos < end; pos++) {
+            byte b = buf.getByte(pos);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa >= MANTISSA_LIMIT) {
+                    if (!fraction) {
+                        // Integer part does not fit into a long: not a price we can represent
+                        return pos;
+                    }
+                    // Drop excess fraction digits
+                    continue;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return pos;
+        }
+        if (pos < end && (buf.getByte(pos) == 'e' || buf.getByte(pos) == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (buf.getByte(pos) == '-' || buf.getByte(pos) == '+')) {
+                negativeExponent = buf.getByte(pos) == '-';
+                pos++;
+            }
+            int exponent = 0;
+            for (; pos < end; pos++) {
+                byte b = buf.getByte(pos);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                exponent = exponent * 10 + (b - '0');
+            }
+            scale += negativeExponent ? exponent : -exponent;
+        }
+        if (quoted && pos < end && buf.getByte(pos) == '"') {
+            pos++;
+        }
+        out.mantissa = negative ? -mantissa : mantissa;
+        out.scale = scale;
+        out.valid = true;
+        return pos;
+    }
+
+    private int readTimestamp(DataBuffer buf, int pos, int end, MexcTicker out) {
+        long value = 0;
+        int digits = 0;
+        for (; pos < end; pos++) {
+            byte b = buf.getByte(pos);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            digits++;
+        }
+        if (digits > 0) {
+            out.timestamp = value;
+        }
+        return pos;
+    }
+
+    /**
+     * @return table slot of the symbol, or -1 if it is not a known symbol
+     */
+    private int lookupSlot(DataBuffer buf, int start, int end) {
+        int slot = hash(buf, start, end) & mask;
+        while (symbols[slot] != null) {
+            if (matches(buf, start, end, symbolBytes[slot])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the closing quote, or {@code end} if the string is unterminated
+     */
+    private static int skipString(DataBuffer buf, int pos, int end) {
+        while (pos < end) {
+            byte b = buf.getByte(pos);
+            if (b == '"') {
+                return pos;
+            }
+            pos += b == '\\' ? 2 : 1;
+        }
+        return end;
+    }
+
+    private static int skipWhitespace(DataBuffer buf, int pos, int end) {
+        while (pos < end) {
+            byte b = buf.getByte(pos);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean matches(DataBuffer buf, int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.getByte(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(DataBuffer buf, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buf.getByte(i);
+        }
+        return mix(h);
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,369 @@
+package trader.arbitrage.client.mexc;
+
+import trader.arbitrage.model.FixedPoint;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * L2 order book of one MEXC contract kept in primitive arrays: asks ascending, bids descending,
+ * prices at the symbol's fixed-point scale and volumes in contracts at {@link #VOLUME_SCALE}.
+ * <p>
+ * Deltas must arrive with consecutive versions. On a gap the book goes out of sync and buffers
+ * incoming deltas until a REST snapshot is loaded; buffered deltas newer than the snapshot are
+ * then replayed. Applying deltas does not allocate.
+ * <p>
+ * Writers (the session event loop and the snapshot loader) are serialized by a seqlock stamp,
+ * which also lets readers compute a consistent VWAP without locking.
+ */
+public class MexcOrderBook {
+
+    public static final int VOLUME_SCALE = 4;
+    // Contracts per volume mantissa unit
+    private static final double VOLUME_UNIT = Math.pow(10, -VOLUME_SCALE);
+
+    private static final int PENDING_CAPACITY = 1024;
+
+    private final SymbolRegistry symbolRegistry;
+    private final int symbolId;
+    private final int maxLevels;
+
+    private final long[] askPrices;
+    private final long[] askVolumes;
+    private int askCount;
+    private final long[] bidPrices;
+    private final long[] bidVolumes;
+    private int bidCount;
+
+    private int priceScale = -1;
+    private double priceUnit;
+    private long version = -1;
+    private boolean synced;
+    private volatile double contractSize = 1;
+
+    // Deltas received while out of sync, one entry per level; allocated on first gap
+    private long[] pendingVersions;
+    private boolean[] pendingAsks;
+    private long[] pendingPriceMantissas;
+    private int[] pendingPriceScales;
+    private long[] pendingVolumeMantissas;
+    private int[] pendingVolumeScales;
+    private int pendingCount;
+
+    private final AtomicLong stamp = new AtomicLong();
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+
+    public MexcOrderBook(SymbolRegistry symbolRegistry, int symbolId, int maxLevels) {
+        this.symbolRegistry = symbolRegistry;
+        this.symbolId = symbolId;
+        this.maxLevels = maxLevels;
+        this.askPrices = new long[maxLevels];
+        this.askVolumes = new long[maxLevels];
+        this.bidPrices = new long[maxLevels];
+        this.bidVolumes = new long[maxLevels];
+    }
+
+    /**
+     * Applies an incremental update
+     *
+     * @return false if the book is out of sync and needs a snapshot
+     */
+    public boolean applyDelta(MexcDepthUpdate update) {
+        long writeStamp = beginWrite();
+        try {
+            if (!synced) {
+                bufferPending(update);
+                return false;
+            }
+            if (update.version <= version) {
+                // Already contained in the snapshot
+                return true;
+            }
+            if (update.version != version + 1) {
+                synced = false;
+                bufferPending(update);
+                return false;
+            }
+            if (!applyLevels(update)) {
+                synced = false;
+                return false;
+            }
+            version = update.version;
+            return true;
+        } finally {
+            endWrite(writeStamp);
+        }
+    }
+
+    /**
+     * Replaces the book with a full snapshot and replays buffered deltas that are newer
+     *
+     * @return true if the book is in sync afterwards
+     */
+    public boolean loadSnapshot(MexcDepthUpdate snapshot) {
+        long writeStamp = beginWrite();
+        try {
+            askCount = 0;
+            bidCount = 0;
+            if (!applyLevels(snapshot)) {
+                synced = false;
+                return false;
+            }
+            version = snapshot.version;
+            synced = replayPending();
+            return synced;
+        } finally {
+            endWrite(writeStamp);
+        }
+    }
+
+    /**
+     * Volume-weighted average price of filling {@code notional} (in quote currency) against
+     * the asks ({@code buy}) or the bids
+     *
+     * @return the VWAP as mantissa at {@link #getPriceScale()}, or -1 if the book is out of sync or too thin
+     */
+    public long vwap(boolean buy, double notional) {
+        while (true) {
+            long readStamp = stamp.get();
+            if ((readStamp & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long result = buy
+                    ? computeVwap(askPrices, askVolumes, askCount, notional)
+                    : computeVwap(bidPrices, bidVolumes, bidCount, notional);
+            VarHandle.loadLoadFence();
+            if (stamp.get() == readStamp) {
+                return result;
+            }
+        }
+    }
+
+    private long computeVwap(long[] prices, long[] volumes, int count, double notional) {
+        if (!synced || priceScale < 0) {
+            return -1;
+        }
+        double quantityUnit = contractSize * VOLUME_UNIT;
+        double remaining = notional;
+        double cost = 0;
+        double quantity = 0;
+        for (int i = 0; i < count && remaining > 0; i++) {
+            double price = prices[i] * priceUnit;
+            double levelQuantity = volumes[i] * quantityUnit;
+            double levelNotional = price * levelQuantity;
+            if (levelNotional >= remaining) {
+                quantity += remaining / price;
+                cost += remaining;
+                remaining = 0;
+            } else {
+                quantity += levelQuantity;
+                cost += levelNotional;
+                remaining -= levelNotional;
+            }
+        }
+        if (remaining > 0 || quantity <= 0) {
+            return -1;
+        }
+        return Math.round(cost / quantity / priceUnit);
+    }
+
+    private boolean applyLevels(MexcDepthUpdate update) {
+        for (int i = 0; i < update.askCount; i++) {
+            if (!setLevel(true, update.askPriceMantissas[i], update.askPriceScales[i],
+                    update.askVolumeMantissas[i], update.askVolumeScales[i])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < update.bidCount; i++) {
+            if (!setLevel(false, update.bidPriceMantissas[i], update.bidPriceScales[i],
+                    update.bidVolumeMantissas[i], update.bidVolumeScales[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the level is out of the fixed-point range
+     */
+    private boolean setLevel(boolean ask, long priceMantissa, int priceScale, long volumeMantissa, int volumeScale) {
+        long price;
+        long volume;
+        try {
+            if (this.priceScale < 0) {
+                this.priceScale = symbolRegistry.scale(symbolId, priceMantissa, priceScale);
+                this.priceUnit = Math.pow(10, -this.priceScale);
+            }
+            price = FixedPoint.rescale(priceMantissa, priceScale, this.priceScale);
+            volume = FixedPoint.rescale(volumeMantissa, volumeScale, VOLUME_SCALE);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        if (ask) {
+            askCount = setLevel(askPrices, askVolumes, askCount, price, volume, false);
+        } else {
+            bidCount = setLevel(bidPrices, bidVolumes, bidCount, price, volume, true);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts, updates or (for a zero volume) removes a level, keeping the side sorted
+     *
+     * @return the new level count
+     */
+    private int setLevel(long[] prices, long[] volumes, int count, long price, long volume, boolean descending) {
+        int index = search(prices, count, price, descending);
+        if (index >= 0) {
+            if (volume > 0) {
+                volumes[index] = volume;
+                return count;
+            }
+            System.arraycopy(prices, index + 1, prices, index, count - index - 1);
+            System.arraycopy(volumes, index + 1, volumes, index, count - index - 1);
+            return count - 1;
+        }
+        int insertAt = -index - 1;
+        if (volume <= 0 || insertAt >= maxLevels) {
+            return count;
+        }
+        int moved = Math.min(count, maxLevels - 1) - insertAt;
+        System.arraycopy(prices, insertAt, prices, insertAt + 1, moved);
+        System.arraycopy(volumes, insertAt, volumes, insertAt + 1, moved);
+        prices[insertAt] = price;
+        volumes[insertAt] = volume;
+        return Math.min(count + 1, maxLevels);
+    }
+
+    /**
+     * Binary search with the contract of {@link java.util.Arrays#binarySearch(long[], long)}
+     */
+    private static int search(long[] prices, int count, long price, boolean descending) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midPrice = prices[mid];
+            if (midPrice == price) {
+                return mid;
+            }
+            if (descending ? midPrice > price : midPrice < price) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void bufferPending(MexcDepthUpdate update) {
+        if (pendingVersions == null) {
+            pendingVersions = new long[PENDING_CAPACITY];
+            pendingAsks = new boolean[PENDING_CAPACITY];
+            pendingPriceMantissas = new long[PENDING_CAPACITY];
+            pendingPriceScales = new int[PENDING_CAPACITY];
+            pendingVolumeMantissas = new long[PENDING_CAPACITY];
+            pendingVolumeScales = new int[PENDING_CAPACITY];
+        }
+        if (pendingCount + update.askCount + update.bidCount > PENDING_CAPACITY) {
+            // Too far behind to catch up; start over from the next snapshot
+            pendingCount = 0;
+            return;
+        }
+        for (int i = 0; i < update.askCount; i++) {
+            addPending(update.version, true, update.askPriceMantissas[i], update.askPriceScales[i],
+                    update.askVolumeMantissas[i], update.askVolumeScales[i]);
+        }
+        for (int i = 0; i < update.bidCount; i++) {
+            addPending(update.version, false, update.bidPriceMantissas[i], update.bidPriceScales[i],
+                    update.bidVolumeMantissas[i], update.bidVolumeScales[i]);
+        }
+    }
+
+    private void addPending(long pendingVersion, boolean ask, long priceMantissa, int priceScale,
+                            long volumeMantissa, int volumeScale) {
+        pendingVersions[pendingCount] = pendingVersion;
+        pendingAsks[pendingCount] = ask;
+        pendingPriceMantissas[pendingCount] = priceMantissa;
+        pendingPriceScales[pendingCount] = priceScale;
+        pendingVolumeMantissas[pendingCount] = volumeMantissa;
+        pendingVolumeScales[pendingCount] = volumeScale;
+        pendingCount++;
+    }
+
+    /**
+     * @return false if the buffered deltas do not continue the current version
+     */
+    private boolean replayPending() {
+        boolean continuous = true;
+        for (int i = 0; i < pendingCount; i++) {
+            long pendingVersion = pendingVersions[i];
+            if (pendingVersion <= version) {
+                continue;
+            }
+            if (pendingVersion != version + 1 && pendingVersion != version) {
+                continuous = false;
+                break;
+            }
+            if (!setLevel(pendingAsks[i], pendingPriceMantissas[i], pendingPriceScales[i],
+                    pendingVolumeMantissas[i], pendingVolumeScales[i])) {
+                continuous = false;
+                break;
+            }
+            version = pendingVersion;
+        }
+        if (continuous) {
+            pendingCount = 0;
+        }
+        return continuous;
+    }
+
+    private long beginWrite() {
+        long current;
+        while (((current = stamp.get()) & 1) != 0 || !stamp.compareAndSet(current, current + 1)) {
+            Thread.onSpinWait();
+        }
+        return current;
+    }
+
+    private void endWrite(long writeStamp) {
+        stamp.set(writeStamp + 2);
+    }
+
+    /**
+     * @return true if the caller should load a snapshot, false if one is already on the way
+     */
+    public boolean markSnapshotPending() {
+        return snapshotPending.compareAndSet(false, true);
+    }
+
+    public void clearSnapshotPending() {
+        snapshotPending.set(false);
+    }
+
+    public void setContractSize(double contractSize) {
+        this.contractSize = contractSize;
+    }
+
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public String getSymbol() {
+        return symbolRegistry.symbol(symbolId);
+    }
+
+    /**
+     * @return fixed-point scale of the book prices, or -1 before the first level arrived
+     */
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+}
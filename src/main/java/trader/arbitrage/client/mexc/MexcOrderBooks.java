@@ -0,0 +1,94 @@
+package trader.arbitrage.client.mexc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * MEXC L2 order books indexed by symbol ID. Books are fed by the WebSocket depth channel and
+ * read by the detectors to size executable spreads.
+ */
+@Component
+public class MexcOrderBooks {
+
+    private final SymbolRegistry symbolRegistry;
+    private final AtomicReferenceArray<MexcOrderBook> books;
+    private final int maxLevels;
+    @Getter
+    private final boolean enabled;
+
+    private final Counter gapsCounter;
+    private final Counter snapshotsCounter;
+
+    public MexcOrderBooks(SymbolRegistry symbolRegistry,
+                          MeterRegistry meterRegistry,
+                          @Value("${mexc.depth.enabled:true}") boolean enabled,
+                          @Value("${mexc.depth.max-levels:200}") int maxLevels) {
+        this.symbolRegistry = symbolRegistry;
+        this.books = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        this.enabled = enabled;
+        this.maxLevels = maxLevels;
+        this.gapsCounter = Counter.builder("mexc.depth.gaps")
+                .description("MEXC depth updates that could not be applied and forced a resync")
+                .register(meterRegistry);
+        this.snapshotsCounter = Counter.builder("mexc.depth.snapshots")
+                .description("MEXC depth snapshots loaded from REST")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the book of the symbol, created on first use
+     */
+    public MexcOrderBook bookOf(int symbolId) {
+        MexcOrderBook book = books.get(symbolId);
+        if (book == null) {
+            books.compareAndSet(symbolId, null, new MexcOrderBook(symbolRegistry, symbolId, maxLevels));
+            book = books.get(symbolId);
+        }
+        return book;
+    }
+
+    /**
+     * @return the book of the symbol, or null if depth is not tracked for it
+     */
+    public MexcOrderBook get(int symbolId) {
+        return symbolId >= 0 ? books.get(symbolId) : null;
+    }
+
+    /**
+     * Applies a depth delta to the book of its symbol
+     *
+     * @return false if the book is out of sync and a snapshot should be loaded
+     */
+    public boolean apply(MexcDepthUpdate update) {
+        MexcOrderBook book = get(update.symbolId);
+        if (book == null) {
+            return true;
+        }
+        boolean wasSynced = book.isSynced();
+        if (book.applyDelta(update)) {
+            return true;
+        }
+        if (wasSynced) {
+            gapsCounter.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Loads a REST depth snapshot into the book of the symbol
+     *
+     * @return true if the book is in sync afterwards
+     */
+    public boolean loadSnapshot(int symbolId, MexcDepthUpdate snapshot) {
+        snapshotsCounter.increment();
+        snapshot.symbol = symbolRegistry.symbol(symbolId);
+        snapshot.symbolId = symbolId;
+        return bookOf(symbolId).loadSnapshot(snapshot);
+    }
+}
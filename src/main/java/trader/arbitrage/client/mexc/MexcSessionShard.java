@@ -0,0 +1,311 @@
+package trader.arbitrage.client.mexc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One MEXC WebSocket connection serving a subset of the symbol universe.
+ * Frames of a shard are decoded on the event loop of its own connection.
+ * <p>
+ * Reconnects never block: a lost session moves the shard to {@link State#BACKOFF} and the
+ * next attempt is scheduled with jittered exponential backoff. Outbound frames (subscriptions
+ * and pings) are tied to the session, so nothing outlives it. Every new session triggers a
+ * REST snapshot to fill the gap before the first push arrives.
+ * <p>
+ * With a depth handler the shard also subscribes to {@code push.depth}; depth deltas are handed
+ * over in a reused holder and must be consumed before the handler returns.
+ */
+@Slf4j
+public class MexcSessionShard implements WebSocketHandler {
+
+    public enum State { IDLE, CONNECTING, CONNECTED, BACKOFF, STOPPED }
+
+    private static final Duration PING_INTERVAL = Duration.ofSeconds(15);
+    private static final String PING_MESSAGE = "{\"method\":\"ping\"}";
+
+    @Getter
+    private final int id;
+    private final URI uri;
+    private final ReactorNettyWebSocketClient client;
+    private final Supplier<MexcFrameDecoder> frameDecoder;
+    private final Consumer<MexcTicker> tickerHandler;
+    // Null unless the depth channel is subscribed
+    private final Consumer<MexcDepthUpdate> depthHandler;
+    private final Function<Set<String>, Mono<Integer>> snapshotLoader;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+    // Reused for every frame; messages of a session are handled sequentially
+    private final MexcTicker ticker = new MexcTicker();
+    private final MexcDepthUpdate depth = new MexcDepthUpdate();
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+    private final AtomicLong disconnectedAtNanos = new AtomicLong();
+    private final AtomicLong gapStartNanos = new AtomicLong();
+    private volatile int attempt;
+    private volatile Disposable connection;
+    private volatile Disposable pendingReconnect;
+    private volatile Sinks.Many<String> outbound;
+
+    private final Counter messagesCounter;
+    private final Counter reconnectsCounter;
+    private final Timer lagTimer;
+    private final Timer reconnectTimer;
+    private final Timer gapTimer;
+
+    public MexcSessionShard(
+            int id,
+            URI uri,
+            ReactorNettyWebSocketClient client,
+            Supplier<MexcFrameDecoder> frameDecoder,
+            Consumer<MexcTicker> tickerHandler,
+            Consumer<MexcDepthUpdate> depthHandler,
+            Function<Set<String>, Mono<Integer>> snapshotLoader,
+            Duration initialBackoff,
+            Duration maxBackoff,
+            MeterRegistry registry) {
+        this.id = id;
+        this.uri = uri;
+        this.client = client;
+        this.frameDecoder = frameDecoder;
+        this.tickerHandler = tickerHandler;
+        this.depthHandler = depthHandler;
+        this.snapshotLoader = snapshotLoader;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        String shardTag = String.valueOf(id);
+        this.messagesCounter = Counter.builder("mexc.ws.messages")
+                .description("Frames received on a MEXC WebSocket shard")
+                .tag("shard", shardTag)
+                .register(registry);
+        this.reconnectsCounter = Counter.builder("mexc.ws.reconnects")
+                .description("Reconnect attempts of a MEXC WebSocket shard")
+                .tag("shard", shardTag)
+                .register(registry);
+        this.lagTimer = Timer.builder("mexc.ws.lag")
+                .description("Delay between the MEXC ticker timestamp and its receipt")
+                .tag("shard", shardTag)
+                .register(registry);
+        this.reconnectTimer = Timer.builder("mexc.ws.reconnect.duration")
+                .description("Time from losing a MEXC session until a new one is established")
+                .tag("shard", shardTag)
+                .register(registry);
+        this.gapTimer = Timer.builder("mexc.ws.gap")
+                .description("Time from losing a MEXC session until fresh prices arrive again")
+                .tag("shard", shardTag)
+                .register(registry);
+        Gauge.builder("mexc.ws.symbols", symbols, Set::size)
+                .description("Symbols subscribed on a MEXC WebSocket shard")
+                .tag("shard", shardTag)
+                .register(registry);
+    }
+
+    public void connect() {
+        State current = state.get();
+        if (current != State.IDLE && current != State.BACKOFF) {
+            return;
+        }
+        if (!state.compareAndSet(current, State.CONNECTING)) {
+            return;
+        }
+        log.info("Connecting MEXC WebSocket shard {} to {} for {} symbols", id, uri, symbols.size());
+
+        connection = client.execute(uri, this)
+                .subscribe(
+                        success -> log.info("WebSocket shard {} session finished", id),
+                        error -> {
+                            log.error("WebSocket shard {} failed: {}", id, error.getMessage());
+                            scheduleReconnect();
+                        },
+                        () -> {
+                            log.info("WebSocket shard {} connection closed", id);
+                            scheduleReconnect();
+                        }
+                );
+    }
+
+    private void scheduleReconnect() {
+        long now = System.nanoTime();
+        disconnectedAtNanos.compareAndSet(0, now);
+        gapStartNanos.compareAndSet(0, now);
+        outbound = null;
+
+        State current = state.get();
+        if (current == State.STOPPED || !state.compareAndSet(current, State.BACKOFF)) {
+            return;
+        }
+        Duration delay = nextBackoff(attempt++);
+        reconnectsCounter.increment();
+        log.info("Reconnecting shard {} in {} ms (attempt {})", id, delay.toMillis(), attempt);
+        pendingReconnect = Mono.delay(delay)
+                .subscribe(v -> connect());
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half of the step is fixed, the other half random
+     */
+    private Duration nextBackoff(int attempt) {
+        long cap = maxBackoff.toMillis();
+        long step = Math.min(cap, initialBackoff.toMillis() << Math.min(attempt, 20));
+        long half = step / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    public void stop() {
+        state.set(State.STOPPED);
+        dispose(pendingReconnect);
+        dispose(connection);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        state.set(State.CONNECTED);
+        attempt = 0;
+        long lostAt = disconnectedAtNanos.getAndSet(0);
+        if (lostAt != 0) {
+            reconnectTimer.record(System.nanoTime() - lostAt, TimeUnit.NANOSECONDS);
+        }
+
+        Sinks.Many<String> sessionOutbound = Sinks.many().unicast().onBackpressureBuffer();
+        synchronized (this) {
+            outbound = sessionOutbound;
+            symbols.forEach(symbol -> subscribeMessages(symbol).forEach(sessionOutbound::tryEmitNext));
+        }
+
+        snapshotLoader.apply(getSymbols())
+                .subscribe(
+                        loaded -> {
+                            log.info("Shard {} refreshed {} prices from REST snapshot", id, loaded);
+                            if (loaded > 0) {
+                                closeGap();
+                            }
+                        },
+                        error -> log.warn("Shard {} snapshot failed: {}", id, error.getMessage())
+                );
+
+        // Subscriptions and pings live exactly as long as the session
+        Mono<Void> output = session.send(Flux.merge(
+                        sessionOutbound.asFlux(),
+                        Flux.interval(PING_INTERVAL).map(i -> PING_MESSAGE))
+                .map(session::textMessage));
+        Mono<Void> input = session.receive()
+                .doOnNext(this::handleMessage)
+                .then();
+
+        return Mono.zip(input, output).then();
+    }
+
+    private void handleMessage(WebSocketMessage message) {
+        messagesCounter.increment();
+        if (log.isTraceEnabled()) {
+            log.trace("Shard {} received message: {}", id, message.getPayloadAsText());
+        }
+
+        int channel = frameDecoder.get().decode(message.getPayload(), ticker, depthHandler != null ? depth : null);
+        if (channel == MexcFrameDecoder.CHANNEL_TICKER) {
+            if (ticker.getTimestamp() >= 0) {
+                lagTimer.record(Math.max(0, System.currentTimeMillis() - ticker.getTimestamp()), TimeUnit.MILLISECONDS);
+            }
+            if (gapStartNanos.get() != 0) {
+                closeGap();
+            }
+            tickerHandler.accept(ticker);
+        } else if (channel == MexcFrameDecoder.CHANNEL_DEPTH && depthHandler != null) {
+            depthHandler.accept(depth);
+        } else if (channel == MexcFrameDecoder.CHANNEL_PONG) {
+            log.debug("Shard {} received pong response", id);
+        }
+    }
+
+    private void closeGap() {
+        long start = gapStartNanos.getAndSet(0);
+        if (start != 0) {
+            gapTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void addSymbol(String symbol) {
+        if (symbols.add(symbol)) {
+            log.info("Subscribing to token {} on shard {}", symbol, id);
+            subscribeMessages(symbol).forEach(this::send);
+        }
+    }
+
+    public void removeSymbol(String symbol) {
+        if (symbols.remove(symbol)) {
+            log.info("Unsubscribing from token {} on shard {}", symbol, id);
+            unsubscribeMessages(symbol).forEach(this::send);
+        }
+    }
+
+    public int symbolCount() {
+        return symbols.size();
+    }
+
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(symbols);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Queues a frame on the current session; without a session the symbol set is replayed on connect
+     */
+    private synchronized void send(String message) {
+        Sinks.Many<String> current = outbound;
+        if (current != null && current.tryEmitNext(message).isFailure()) {
+            log.warn("Shard {} could not queue {}", id, message);
+        }
+    }
+
+    private static void dispose(Disposable disposable) {
+        if (disposable != null) {
+            disposable.dispose();
+        }
+    }
+
+    private List<String> subscribeMessages(String symbol) {
+        return depthHandler != null
+                ? List.of(channelMessage("sub.ticker", symbol), channelMessage("sub.depth", symbol))
+                : List.of(channelMessage("sub.ticker", symbol));
+    }
+
+    private List<String> unsubscribeMessages(String symbol) {
+        return depthHandler != null
+                ? List.of(channelMessage("unsub.ticker", symbol), channelMessage("unsub.depth", symbol))
+                : List.of(channelMessage("unsub.ticker", symbol));
+    }
+
+    private static String channelMessage(String method, String symbol) {
+        return String.format("{\"method\":\"%s\",\"param\":{\"symbol\":\"%s\"}}", method, symbol);
+    }
+}
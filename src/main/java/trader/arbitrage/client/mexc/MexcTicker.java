@@ -0,0 +1,39 @@
+package trader.arbitrage.client.mexc;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Mutable holder for the fields of a MEXC push.ticker frame; for other frames only
+ * the channel and symbol are set. One instance is reused per WebSocket session, so decoding does not allocate.
+ * The last price is fixed-point: {@code priceMantissa * 10^-priceScale}.
+ */
+@Getter
+public class MexcTicker {
+    int channel;
+    String symbol;
+    int symbolId;
+    long priceMantissa;
+    int priceScale;
+    boolean hasPrice;
+    long timestamp;
+    @Getter(AccessLevel.NONE)
+    final MexcDecimal number = new MexcDecimal();
+
+    void reset() {
+        channel = MexcFrameDecoder.CHANNEL_UNKNOWN;
+        symbol = null;
+        symbolId = -1;
+        priceMantissa = 0;
+        priceScale = 0;
+        hasPrice = false;
+        timestamp = -1;
+    }
+
+    /**
+     * @return true if this is a ticker for a known symbol with a parsed last price
+     */
+    public boolean isComplete() {
+        return channel == MexcFrameDecoder.CHANNEL_TICKER && symbol != null && hasPrice;
+    }
+}
@@ -0,0 +1,218 @@
+package trader.arbitrage.client.pancake;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * web3j HTTP transport over several JSON-RPC endpoints. Every request goes to the endpoint with
+ * the lowest observed latency; a connection error, {@code 429} or {@code 5xx} puts the endpoint
+ * on cooldown and the request is retried on the next one. Any other error status is the request's
+ * fault rather than the endpoint's and is thrown as is. JSON-RPC batches
+ * ({@code web3j.newBatch()}) go out as one HTTP request like single calls.
+ * <p>
+ * At most {@code maxRequestsPerEndpoint} requests are in flight to one endpoint; further callers
+ * wait for a slot. The limit is kept here because OkHttp's dispatcher only limits async calls.
+ * <p>
+ * Latency is recorded per JSON-RPC method, batches under the method {@code batch}. Responses are
+ * gzip-compressed by the node when it supports it; OkHttp negotiates and decompresses them.
+ */
+@Slf4j
+public class FailoverHttpService extends HttpService {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    // Weight of the latest sample in an endpoint's latency estimate
+    private static final double LATENCY_ALPHA = 0.2;
+
+    private final OkHttpClient client;
+    private final Endpoint[] endpoints;
+    private final long cooldownNanos;
+    private final MeterRegistry registry;
+    private final Map<String, Timer> methodTimers = new ConcurrentHashMap<>();
+
+    public FailoverHttpService(
+            List<String> urls, OkHttpClient client, long cooldownMillis, int maxRequestsPerEndpoint, MeterRegistry registry) {
+        super(urls.get(0), client);
+        this.client = client;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.registry = registry;
+        this.endpoints = urls.stream()
+                .map(url -> new Endpoint(HttpUrl.get(url), Math.max(1, maxRequestsPerEndpoint), registry))
+                .toArray(Endpoint[]::new);
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        long start = System.nanoTime();
+        IOException failure = null;
+        for (Endpoint endpoint : ranked(start)) {
+            long attempt = System.nanoTime();
+            try {
+                byte[] body = post(endpoint, payload);
+                long now = System.nanoTime();
+                endpoint.succeeded(now - attempt);
+                methodTimer(method(payload)).record(now - start, TimeUnit.NANOSECONDS);
+                return new ByteArrayInputStream(body);
+            } catch (ClientConnectionException e) {
+                // The endpoint answered; another one would reject the request the same way
+                endpoint.succeeded(System.nanoTime() - attempt);
+                throw e;
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // The caller was cancelled; the endpoint did nothing wrong and the next one would fail the same way.
+                    // OkHttp's call timeout also throws InterruptedIOException but leaves the flag clear and fails over
+                    throw e;
+                }
+                endpoint.failed(System.nanoTime() + cooldownNanos);
+                log.warn("BSC RPC endpoint {} failed, trying the next one: {}", endpoint.host, e.getMessage());
+                failure = e;
+            }
+        }
+        throw failure != null ? failure : new IOException("No BSC RPC endpoint configured");
+    }
+
+    /**
+     * @throws EndpointUnavailableException on {@code 429} and {@code 5xx}
+     * @throws ClientConnectionException on any other error status
+     */
+    private byte[] post(Endpoint endpoint, String payload) throws IOException {
+        okhttp3.Request request = new okhttp3.Request.Builder()
+                .url(endpoint.url)
+                .post(RequestBody.create(payload, JSON))
+                .build();
+        try {
+            endpoint.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for BSC RPC endpoint " + endpoint.host);
+        }
+        try (okhttp3.Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful()) {
+                int code = response.code();
+                String message = "Invalid response received: " + code + "; " + (body != null ? body.string() : "N/A");
+                if (code == 429 || code >= 500) {
+                    throw new EndpointUnavailableException(message);
+                }
+                throw new ClientConnectionException(message);
+            }
+            // Read fully here so a slow body counts against this endpoint, not the caller
+            return body != null ? body.bytes() : new byte[0];
+        } finally {
+            endpoint.permits.release();
+        }
+    }
+
+    /**
+     * The endpoint is overloaded or down; the request may succeed on another one
+     */
+    private static final class EndpointUnavailableException extends IOException {
+        private EndpointUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Endpoints off cooldown by latency, then those on cooldown by how soon it ends
+     */
+    private List<Endpoint> ranked(long now) {
+        if (endpoints.length == 1) {
+            return List.of(endpoints[0]);
+        }
+        // Sort a snapshot: the estimates move under concurrent requests
+        return Arrays.stream(endpoints)
+                .map(endpoint -> new Rank(endpoint, endpoint.coolingDown(now) ? endpoint.cooldownUntil - now : 0, endpoint.latencyNanos))
+                .sorted(Comparator.comparingLong(Rank::cooldownLeft).thenComparingDouble(Rank::latencyNanos))
+                .map(Rank::endpoint)
+                .toList();
+    }
+
+    private record Rank(Endpoint endpoint, long cooldownLeft, double latencyNanos) {
+    }
+
+    private Timer methodTimer(String method) {
+        return methodTimers.computeIfAbsent(method, m -> Timer.builder("bsc.rpc.latency")
+                .description("Round trip of JSON-RPC requests to the BSC node, failover included")
+                .tag("method", m)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * JSON-RPC method of a payload; web3j writes {@code method} right after {@code jsonrpc}
+     */
+    private static String method(String payload) {
+        if (payload.startsWith("[")) {
+            return "batch";
+        }
+        int start = payload.indexOf("\"method\":\"");
+        if (start < 0) {
+            return "unknown";
+        }
+        start += "\"method\":\"".length();
+        int end = payload.indexOf('"', start);
+        return end > start ? payload.substring(start, end) : "unknown";
+    }
+
+    private static final class Endpoint {
+        private final HttpUrl url;
+        private final String host;
+        private final Semaphore permits;
+        private final Counter failures;
+        // Written under the lock, read without it for ranking
+        private volatile double latencyNanos;
+        private volatile long cooldownUntil;
+        private volatile boolean coolingDown;
+
+        private Endpoint(HttpUrl url, int maxRequests, MeterRegistry registry) {
+            this.url = url;
+            this.host = url.host();
+            this.permits = new Semaphore(maxRequests);
+            this.failures = Counter.builder("bsc.rpc.failover")
+                    .description("Requests moved off a failing BSC RPC endpoint")
+                    .tag("endpoint", host)
+                    .register(registry);
+            Gauge.builder("bsc.rpc.endpoint.latency", this, endpoint -> endpoint.latencyNanos / 1_000_000)
+                    .description("Smoothed round trip of a BSC RPC endpoint")
+                    .baseUnit("milliseconds")
+                    .tag("endpoint", host)
+                    .register(registry);
+        }
+
+        private boolean coolingDown(long now) {
+            return coolingDown && now - cooldownUntil < 0;
+        }
+
+        private synchronized void succeeded(long elapsedNanos) {
+            latencyNanos = latencyNanos == 0 ? elapsedNanos : latencyNanos + LATENCY_ALPHA * (elapsedNanos - latencyNanos);
+            coolingDown = false;
+        }
+
+        private synchronized void failed(long until) {
+            cooldownUntil = until;
+            coolingDown = true;
+            failures.increment();
+        }
+    }
+}
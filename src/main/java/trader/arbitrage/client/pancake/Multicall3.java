@@ -0,0 +1,166 @@
+package trader.arbitrage.client.pancake;
+
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ABI encoding of Multicall3 {@code aggregate3((address,bool,bytes)[])} and decoding of its
+ * {@code (bool,bytes)[]} result, written out by hand so a whole batch is encoded once into a
+ * single byte array and decoded by offset arithmetic without going through web3j's reflective
+ * type decoding.
+ */
+public final class Multicall3 {
+
+    /** Multicall3 is deployed at the same address on every major EVM chain, BSC included */
+    public static final String DEFAULT_ADDRESS = "0xcA11bde05977b3631167028862bE2a173976CA11";
+
+    private static final byte[] AGGREGATE3_SELECTOR = Numeric.hexStringToByteArray("0x82ad56cb");
+    private static final int WORD = 32;
+
+    public record Call(String target, boolean allowFailure, byte[] callData) {
+    }
+
+    public record Result(boolean success, byte[] returnData) {
+    }
+
+    private Multicall3() {
+    }
+
+    /**
+     * Calldata of {@code getAmountsOut(uint256 amountIn, address[] path)} on a UniswapV2-style router
+     */
+    public static byte[] encodeGetAmountsOut(BigInteger amountIn, List<String> path) {
+        Function function = new Function(
+                "getAmountsOut",
+                List.of(new Uint256(amountIn), new DynamicArray<>(Address.class, path.stream().map(Address::new).toList())),
+                List.of());
+        return Numeric.hexStringToByteArray(FunctionEncoder.encode(function));
+    }
+
+    /**
+     * Calldata of {@code aggregate3(calls)}
+     */
+    public static byte[] encodeAggregate3(List<Call> calls) {
+        int count = calls.size();
+        int[] tupleSizes = new int[count];
+        int tuplesSize = 0;
+        for (int i = 0; i < count; i++) {
+            // target, allowFailure, offset of callData, callData length, callData padded to words
+            tupleSizes[i] = 4 * WORD + padded(calls.get(i).callData().length);
+            tuplesSize += tupleSizes[i];
+        }
+        ByteBuffer out = ByteBuffer.allocate(AGGREGATE3_SELECTOR.length + 2 * WORD + count * WORD + tuplesSize);
+        out.put(AGGREGATE3_SELECTOR);
+        putWord(out, WORD); // offset of the array
+        putWord(out, count);
+        // Tuple offsets are relative to the first offset word
+        int offset = count * WORD;
+        for (int i = 0; i < count; i++) {
+            putWord(out, offset);
+            offset += tupleSizes[i];
+        }
+        for (Call call : calls) {
+            byte[] target = Numeric.hexStringToByteArray(call.target());
+            out.position(out.position() + WORD - target.length);
+            out.put(target);
+            putWord(out, call.allowFailure() ? 1 : 0);
+            putWord(out, 3 * WORD); // callData follows the three head words of the tuple
+            putWord(out, call.callData().length);
+            out.put(call.callData());
+            out.position(out.position() + padded(call.callData().length) - call.callData().length);
+        }
+        return out.array();
+    }
+
+    /**
+     * Decodes the {@code (bool success, bytes returnData)[]} returned by {@code aggregate3}
+     *
+     * @throws IllegalStateException if the data is not a well-formed result array
+     */
+    public static Result[] decodeAggregate3(byte[] data) {
+        int array = offset(data, 0);
+        int count = offset(data, array);
+        int base = array + WORD;
+        Result[] results = new Result[count];
+        for (int i = 0; i < count; i++) {
+            int tuple = base + offset(data, base + i * WORD);
+            boolean success = offset(data, tuple) != 0;
+            int bytes = tuple + offset(data, tuple + WORD);
+            int length = offset(data, bytes);
+            results[i] = new Result(success, slice(data, bytes + WORD, length));
+        }
+        return results;
+    }
+
+    /**
+     * Last element of an ABI-encoded {@code uint256[]}, e.g. the output amount of {@code getAmountsOut}
+     *
+     * @return the value, or null if the array is empty
+     */
+    public static BigInteger decodeLastUint256(byte[] data) {
+        int array = offset(data, 0);
+        int length = offset(data, array);
+        if (length == 0) {
+            return null;
+        }
+        return new BigInteger(1, slice(data, array + length * WORD, WORD));
+    }
+
+    /**
+     * Word {@code index} of ABI-encoded data as an unsigned integer
+     */
+    public static BigInteger uint(byte[] data, int index) {
+        return new BigInteger(1, slice(data, index * WORD, WORD));
+    }
+
+    /**
+     * Word {@code index} of ABI-encoded data as a lower-case address
+     */
+    public static String address(byte[] data, int index) {
+        return Numeric.toHexString(slice(data, index * WORD + WORD - 20, 20));
+    }
+
+    private static int padded(int length) {
+        return (length + WORD - 1) / WORD * WORD;
+    }
+
+    private static void putWord(ByteBuffer out, int value) {
+        out.position(out.position() + WORD - Integer.BYTES);
+        out.putInt(value);
+    }
+
+    /**
+     * Reads a word holding an offset, length or flag
+     */
+    private static int offset(byte[] data, int position) {
+        if (position < 0 || position + WORD > data.length) {
+            throw new IllegalStateException("Malformed ABI data: word at " + position + " beyond " + data.length + " bytes");
+        }
+        for (int i = position; i < position + WORD - Integer.BYTES; i++) {
+            if (data[i] != 0) {
+                throw new IllegalStateException("Malformed ABI data: value at " + position + " out of range");
+            }
+        }
+        int value = ByteBuffer.wrap(data, position + WORD - Integer.BYTES, Integer.BYTES).getInt();
+        if (value < 0) {
+            throw new IllegalStateException("Malformed ABI data: value at " + position + " out of range");
+        }
+        return value;
+    }
+
+    private static byte[] slice(byte[] data, int from, int length) {
+        if (from < 0 || length < 0 || from + length > data.length) {
+            throw new IllegalStateException("Malformed ABI data: " + length + " bytes at " + from + " beyond " + data.length);
+        }
+        return Arrays.copyOfRange(data, from, from + length);
+    }
+}
@@ -0,0 +1,85 @@
+package trader.arbitrage.client.pancake;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Fill prices of one token on PancakeSwap for a range of order sizes, computed from the reserves
+ * of one block with the router's swap math. Sizes are USD notionals in the last token of the
+ * route (BUSD); amounts assume 18 decimals on every token of the path, as the quotes do.
+ * <p>
+ * Immutable; a new ladder is computed when the reserves of the route change.
+ */
+public final class PancakeImpactLadder {
+
+    private static final int DECIMALS = 18;
+    private static final BigInteger ONE = BigInteger.TEN.pow(DECIMALS);
+
+    @Getter
+    private final long blockNumber;
+    private final long[] notionals;
+    // USD per token at 18 decimals per rung, null if the pools cannot fill it
+    private final BigDecimal[] buyPrices;
+    private final BigDecimal[] sellPrices;
+
+    private PancakeImpactLadder(long blockNumber, long[] notionals, BigDecimal[] buyPrices, BigDecimal[] sellPrices) {
+        this.blockNumber = blockNumber;
+        this.notionals = notionals;
+        this.buyPrices = buyPrices;
+        this.sellPrices = sellPrices;
+    }
+
+    /**
+     * Prices every notional on the route at its current reserves
+     *
+     * @param sortedNotionals USD sizes in ascending order, kept by the ladder
+     * @return the ladder, or null if the route has no price
+     */
+    static PancakeImpactLadder compute(PancakeRoute route, long[] sortedNotionals) {
+        BigInteger unitOut = route.amountOut(ONE);
+        if (unitOut == null || unitOut.signum() <= 0) {
+            return null;
+        }
+        BigDecimal[] buyPrices = new BigDecimal[sortedNotionals.length];
+        BigDecimal[] sellPrices = new BigDecimal[sortedNotionals.length];
+        for (int i = 0; i < sortedNotionals.length; i++) {
+            BigInteger usd = BigInteger.valueOf(sortedNotionals[i]).multiply(ONE);
+            // Buy: spend the notional in BUSD along the path in reverse
+            buyPrices[i] = ratio(usd, route.amountOutReverse(usd));
+            // Sell: the token amount worth the notional at the 1-token quote
+            BigInteger tokens = usd.multiply(ONE).divide(unitOut);
+            sellPrices[i] = ratio(route.amountOut(tokens), tokens);
+        }
+        return new PancakeImpactLadder(route.blockNumber(), sortedNotionals, buyPrices, sellPrices);
+    }
+
+    private static BigDecimal ratio(BigInteger usd, BigInteger tokens) {
+        if (usd == null || tokens == null || usd.signum() <= 0 || tokens.signum() <= 0) {
+            return null;
+        }
+        return new BigDecimal(usd).divide(new BigDecimal(tokens), DECIMALS, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Average fill price of buying ({@code buy}) or selling {@code notional} USD worth of the token
+     *
+     * @return the price as mantissa at {@code scale}, or -1 if the notional is not on the ladder or
+     * the pools are too thin for it
+     */
+    public long fillPrice(boolean buy, long notional, int scale) {
+        int rung = Arrays.binarySearch(notionals, notional);
+        BigDecimal price = rung >= 0 ? (buy ? buyPrices : sellPrices)[rung] : null;
+        if (price == null) {
+            return -1;
+        }
+        try {
+            return price.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package trader.arbitrage.client.pancake;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * PancakeSwap price-impact ladders indexed by symbol ID. A ladder is recomputed from the tracked
+ * reserves once per block in which the token's route changed, without any RPC call, and read by
+ * the detectors to size executable spreads against the MEXC book.
+ */
+@Component
+public class PancakeImpactLadders {
+
+    private final AtomicReferenceArray<PancakeImpactLadder> ladders;
+    private final long[] notionals;
+    private final Timer computeTimer;
+
+    public PancakeImpactLadders(SymbolRegistry symbolRegistry,
+                                MeterRegistry meterRegistry,
+                                @Value("${pancake.impact.notionals:100,500,1000,5000,10000,50000}") long[] notionals) {
+        this.ladders = new AtomicReferenceArray<>(symbolRegistry.capacity());
+        this.notionals = Arrays.stream(notionals).filter(notional -> notional > 0).sorted().distinct().toArray();
+        this.computeTimer = Timer.builder("pancake.impact.compute")
+                .description("Time to price one PancakeSwap impact ladder from the tracked reserves")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reprices the ladder of a symbol unless it is already at the route's block
+     */
+    public void update(int symbolId, PancakeRoute route) {
+        PancakeImpactLadder current = ladders.get(symbolId);
+        if (current != null && current.getBlockNumber() == route.blockNumber()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ladders.set(symbolId, PancakeImpactLadder.compute(route, notionals));
+        computeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the ladder of the symbol, or null if it is not priced from reserves
+     */
+    public PancakeImpactLadder get(int symbolId) {
+        return symbolId >= 0 ? ladders.get(symbolId) : null;
+    }
+}
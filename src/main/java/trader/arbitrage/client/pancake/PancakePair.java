@@ -0,0 +1,67 @@
+package trader.arbitrage.client.pancake;
+
+import lombok.Getter;
+
+import java.math.BigInteger;
+
+/**
+ * Locally tracked PancakeSwap V2 pair. Reserves are replaced as a whole by the latest
+ * {@code Sync} event, so a reader always sees both reserves of the same pool state.
+ */
+public final class PancakePair {
+
+    /**
+     * Pool state after the event at {@code logIndex} of {@code blockNumber}; a state loaded with
+     * {@code getReserves} has log index -1 and precedes every event of the block after it
+     */
+    public record Reserves(BigInteger reserve0, BigInteger reserve1, long blockNumber, long logIndex) {
+
+        boolean isAfter(Reserves other) {
+            return other == null
+                    || blockNumber > other.blockNumber
+                    || blockNumber == other.blockNumber && logIndex > other.logIndex;
+        }
+    }
+
+    @Getter
+    private final String address;
+    @Getter
+    private final String token0;
+    @Getter
+    private final String token1;
+    private volatile Reserves reserves;
+
+    PancakePair(String address, String token0, String token1) {
+        this.address = address;
+        this.token0 = token0;
+        this.token1 = token1;
+    }
+
+    /**
+     * @return latest known reserves, or null before the first load
+     */
+    public Reserves getReserves() {
+        return reserves;
+    }
+
+    /**
+     * Applies a newer pool state; older or replayed states are ignored
+     *
+     * @return true if the reserves changed
+     */
+    boolean update(Reserves next) {
+        Reserves current = reserves;
+        if (!next.isAfter(current)) {
+            return false;
+        }
+        reserves = next;
+        return current == null
+                || !current.reserve0().equals(next.reserve0())
+                || !current.reserve1().equals(next.reserve1());
+    }
+
+    @Override
+    public String toString() {
+        return address + "(" + token0 + "/" + token1 + ")";
+    }
+}
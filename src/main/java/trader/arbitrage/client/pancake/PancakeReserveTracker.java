@@ -0,0 +1,484 @@
+package trader.arbitrage.client.pancake;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+import reactor.core.publisher.Mono;
+import trader.arbitrage.config.PancakeProperties;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the reserves of the PancakeSwap V2 pairs on the registered routes in memory.
+ * <p>
+ * On the first refresh the pairs are resolved through the factory ({@code getPair}) and their
+ * {@code token0} and {@code getReserves} are loaded at one block, all in Multicall3 batches.
+ * Routes whose pairs fail to resolve or load stay pending and are retried on later refreshes,
+ * loaded at the block the tracked pairs are at. Once a pair has loaded, every refresh polls
+ * {@code eth_getLogs} for the {@code Sync} events of the tracked pairs in the blocks since the
+ * last one seen, so reserves change exactly when a pool does. All calls are made at explicit
+ * block numbers, never at {@code latest}, and stay {@code pancake.sync.confirmations} blocks behind
+ * the head: {@code eth_getLogs} ranges never report removed logs, and once a block has been
+ * applied its events are not read again, so a short reorg must not reach the tracked reserves.
+ * <p>
+ * After {@code pancake.sync.logs-failure-threshold} failed {@code eth_getLogs} refreshes in a row
+ * (range or rate limits, or endpoints that do not serve logs at all) the tracker falls back to one
+ * Multicall {@code getReserves} of all tracked pairs per block, and probes the logs again every
+ * {@code pancake.sync.logs-retry-blocks} blocks.
+ * <p>
+ * Refreshes must not overlap; the caller runs them one at a time, once per new block.
+ */
+@Slf4j
+@Component
+public class PancakeReserveTracker {
+
+    private static final String SYNC_TOPIC = EventEncoder.buildEventSignature("Sync(uint112,uint112)");
+    private static final byte[] TOKEN0_CALL = encode(new Function("token0", List.of(), List.of()));
+    private static final byte[] GET_RESERVES_CALL = encode(new Function("getReserves", List.of(), List.of()));
+    private static final String ZERO_ADDRESS = "0x0000000000000000000000000000000000000000";
+
+    private final Web3j web3j;
+    private final PancakeRpc rpc;
+    private final PancakeProperties props;
+    private final long maxBlockRange;
+    private final int maxBatchRanges;
+    private final long resolveRetryBlocks;
+    private final int logsFailureThreshold;
+    private final long logsRetryBlocks;
+    private final long confirmations;
+
+    private final List<PancakeRoute> routes = new ArrayList<>();
+    // Tracked pairs by lower-case address and by the hop they serve, filled as routes resolve
+    private final Map<String, PancakePair> pairs = new HashMap<>();
+    private final Map<String, PancakePair> pairByHop = new HashMap<>();
+    // Set once a pair has loaded; Sync events are followed from then on
+    private volatile boolean bootstrapped;
+    // First head at which routes still unbound are resolved again
+    private long nextResolveBlock;
+    // eth_getLogs refreshes failed in a row; past the threshold reserves are polled instead
+    private int logsFailures;
+    private volatile boolean pollingReserves;
+    private long nextLogsProbe;
+    // Last block whose Sync events have been applied
+    private final AtomicLong lastBlock = new AtomicLong(-1);
+    private final AtomicLong headBlock = new AtomicLong(-1);
+
+    private final Counter syncEventsCounter;
+    private final Counter logsFailuresCounter;
+
+    public PancakeReserveTracker(
+            Web3j web3j,
+            PancakeRpc rpc,
+            PancakeProperties props,
+            MeterRegistry registry,
+            @Value("${pancake.sync.max-block-range:500}") long maxBlockRange,
+            @Value("${pancake.sync.max-batch-ranges:4}") int maxBatchRanges,
+            @Value("${pancake.sync.resolve-retry-blocks:20}") long resolveRetryBlocks,
+            @Value("${pancake.sync.logs-failure-threshold:3}") int logsFailureThreshold,
+            @Value("${pancake.sync.logs-retry-blocks:200}") long logsRetryBlocks,
+            @Value("${pancake.sync.confirmations:3}") long confirmations) {
+        this.web3j = web3j;
+        this.rpc = rpc;
+        this.props = props;
+        this.maxBlockRange = Math.max(1, maxBlockRange);
+        this.maxBatchRanges = Math.max(1, maxBatchRanges);
+        this.resolveRetryBlocks = Math.max(1, resolveRetryBlocks);
+        this.logsFailureThreshold = Math.max(1, logsFailureThreshold);
+        this.logsRetryBlocks = Math.max(1, logsRetryBlocks);
+        this.confirmations = Math.max(0, confirmations);
+        this.syncEventsCounter = Counter.builder("pancake.sync.events")
+                .description("Sync events applied to tracked PancakeSwap pair reserves")
+                .register(registry);
+        this.logsFailuresCounter = Counter.builder("pancake.sync.logs.failures")
+                .description("Refreshes whose eth_getLogs for Sync events failed")
+                .register(registry);
+        Gauge.builder("pancake.sync.polling", this, tracker -> tracker.pollingReserves ? 1 : 0)
+                .description("1 while reserves are polled with getReserves because eth_getLogs keeps failing")
+                .register(registry);
+        Gauge.builder("pancake.sync.lag", this, tracker -> tracker.lagBlocks())
+                .description("Blocks between the chain head and the last block whose Sync events were applied, confirmations included")
+                .register(registry);
+    }
+
+    private static byte[] encode(Function function) {
+        return Numeric.hexStringToByteArray(FunctionEncoder.encode(function));
+    }
+
+    private double lagBlocks() {
+        long head = headBlock.get();
+        long last = lastBlock.get();
+        return head >= 0 && last >= 0 ? head - last : 0;
+    }
+
+    /**
+     * Registers a swap path; its pairs are resolved on the next refresh
+     */
+    public synchronized PancakeRoute register(List<String> path) {
+        PancakeRoute route = new PancakeRoute(path.stream().map(PancakeReserveTracker::normalize).toList());
+        routes.add(route);
+        return route;
+    }
+
+    public boolean isBootstrapped() {
+        return bootstrapped;
+    }
+
+    /**
+     * @return the block the reserves are brought up to when the chain head is {@code head}
+     */
+    public long confirmedBlock(long head) {
+        return head - confirmations;
+    }
+
+    /**
+     * Last block whose Sync events have been applied, -1 before the bootstrap
+     */
+    public long getLastBlock() {
+        return lastBlock.get();
+    }
+
+    /**
+     * Brings the reserves up to the confirmed block below {@code head}, or as close as the block
+     * range allows
+     *
+     * @return the pairs whose reserves changed, newly tracked pairs included
+     */
+    public Mono<Set<PancakePair>> refresh(long head) {
+        return Mono.defer(() -> {
+            headBlock.set(head);
+            long confirmed = confirmedBlock(head);
+            if (confirmed < 0) {
+                return Mono.just(Set.<PancakePair>of());
+            }
+            if (!bootstrapped) {
+                return resolvePending(confirmed, confirmed);
+            }
+            // New pairs join at the block the tracked ones are at, then all follow the same events
+            return resolvePending(lastBlock.get(), confirmed)
+                    .flatMap(added -> syncReserves(confirmed).map(changed -> {
+                        if (added.isEmpty()) {
+                            return changed;
+                        }
+                        Set<PancakePair> all = new LinkedHashSet<>(added);
+                        all.addAll(changed);
+                        return all;
+                    }));
+        });
+    }
+
+    /**
+     * Resolves the pairs of the routes not bound yet and loads their reserves at {@code block}.
+     * Routes whose pairs could not be resolved or loaded stay pending and are retried every
+     * {@code pancake.sync.resolve-retry-blocks} blocks.
+     */
+    private Mono<Set<PancakePair>> resolvePending(long block, long head) {
+        List<PancakeRoute> pending = snapshotRoutes().stream().filter(route -> !route.isBound()).toList();
+        if (pending.isEmpty() || head < nextResolveBlock) {
+            return Mono.just(Set.of());
+        }
+        nextResolveBlock = head + resolveRetryBlocks;
+        List<String[]> hops = new ArrayList<>();
+        Set<String> hopKeys = new LinkedHashSet<>();
+        for (PancakeRoute route : pending) {
+            List<String> path = route.getPath();
+            for (int i = 0; i + 1 < path.size(); i++) {
+                String key = hopKey(path.get(i), path.get(i + 1));
+                if (!pairByHop.containsKey(key) && hopKeys.add(key)) {
+                    hops.add(new String[]{path.get(i), path.get(i + 1)});
+                }
+            }
+        }
+        if (hops.isEmpty()) {
+            return Mono.just(bind(pending, Map.of(), block));
+        }
+        List<Multicall3.Call> getPairCalls = hops.stream()
+                .map(hop -> new Multicall3.Call(props.getFactoryAddress(), true, encode(new Function(
+                        "getPair", List.of(new Address(hop[0]), new Address(hop[1])), List.of()))))
+                .toList();
+        return aggregate(getPairCalls, block)
+                .flatMap(results -> {
+                    // Pair address, then the two tokens of the hop it was resolved for
+                    List<String[]> resolved = new ArrayList<>();
+                    for (int i = 0; i < results.length; i++) {
+                        String[] hop = hops.get(i);
+                        String pair = results[i].success() ? Multicall3.address(results[i].returnData(), 0) : ZERO_ADDRESS;
+                        if (ZERO_ADDRESS.equals(pair)) {
+                            log.error("No PancakeSwap pair for {} / {}", hop[0], hop[1]);
+                            continue;
+                        }
+                        resolved.add(new String[]{pair, hop[0], hop[1]});
+                    }
+                    return loadPairs(resolved, block).map(loaded -> bind(pending, loaded, block));
+                });
+    }
+
+    /**
+     * Loads {@code token0} and the reserves of each pair at {@code block}
+     *
+     * @return the loaded pairs by the key of the hop they were resolved for
+     */
+    private Mono<Map<String, PancakePair>> loadPairs(List<String[]> resolved, long block) {
+        if (resolved.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        List<Multicall3.Call> calls = new ArrayList<>();
+        for (String[] pair : resolved) {
+            calls.add(new Multicall3.Call(pair[0], true, TOKEN0_CALL));
+            calls.add(new Multicall3.Call(pair[0], true, GET_RESERVES_CALL));
+        }
+        return aggregate(calls, block).map(results -> {
+            Map<String, PancakePair> loaded = new HashMap<>();
+            for (int i = 0; i < resolved.size(); i++) {
+                String[] resolvedPair = resolved.get(i);
+                Multicall3.Result token0 = results[2 * i];
+                Multicall3.Result reserves = results[2 * i + 1];
+                if (!token0.success() || !reserves.success()) {
+                    log.error("Could not load PancakeSwap pair {}", resolvedPair[0]);
+                    continue;
+                }
+                String token0Address = Multicall3.address(token0.returnData(), 0);
+                String token1Address = token0Address.equals(resolvedPair[1]) ? resolvedPair[2] : resolvedPair[1];
+                PancakePair pair = pairs.get(resolvedPair[0]);
+                if (pair == null) {
+                    pair = new PancakePair(resolvedPair[0], token0Address, token1Address);
+                    pair.update(new PancakePair.Reserves(
+                            Multicall3.uint(reserves.returnData(), 0),
+                            Multicall3.uint(reserves.returnData(), 1),
+                            block,
+                            -1));
+                }
+                loaded.put(hopKey(resolvedPair[1], resolvedPair[2]), pair);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Starts tracking the loaded pairs and binds every pending route whose hops all have a pair
+     *
+     * @return the newly tracked pairs
+     */
+    private Set<PancakePair> bind(List<PancakeRoute> pending, Map<String, PancakePair> loaded, long block) {
+        Set<PancakePair> added = new LinkedHashSet<>();
+        loaded.forEach((hop, pair) -> {
+            pairByHop.put(hop, pair);
+            if (pairs.putIfAbsent(pair.getAddress(), pair) == null) {
+                added.add(pair);
+            }
+        });
+        int unbound = 0;
+        for (PancakeRoute route : pending) {
+            List<String> path = route.getPath();
+            PancakePair[] hopPairs = new PancakePair[path.size() - 1];
+            for (int i = 0; i < hopPairs.length; i++) {
+                hopPairs[i] = pairByHop.get(hopKey(path.get(i), path.get(i + 1)));
+            }
+            if (Arrays.asList(hopPairs).contains(null)) {
+                log.error("PancakeSwap route {} has no tracked pair for every hop; retrying from block {}",
+                        path, nextResolveBlock);
+                unbound++;
+                continue;
+            }
+            route.bind(hopPairs);
+        }
+        // Bootstrapped by the first pair that loads; until then every resolution starts at the head
+        if (!bootstrapped && !pairs.isEmpty()) {
+            lastBlock.set(block);
+            bootstrapped = true;
+        }
+        if (!added.isEmpty()) {
+            log.info("Tracking reserves of {} PancakeSwap pairs from block {} ({} routes pending)",
+                    pairs.size(), block, unbound);
+        }
+        return added;
+    }
+
+    /**
+     * Follows the Sync events up to {@code head}, or polls the reserves at {@code head} while
+     * {@code eth_getLogs} keeps failing
+     */
+    private Mono<Set<PancakePair>> syncReserves(long head) {
+        if (pollingReserves && head < nextLogsProbe) {
+            return pollReserves(head);
+        }
+        return followSyncEvents(head)
+                .doOnNext(changed -> {
+                    if (pollingReserves) {
+                        log.info("eth_getLogs works again; following Sync events from block {}", lastBlock.get());
+                    }
+                    logsFailures = 0;
+                    pollingReserves = false;
+                })
+                .onErrorResume(error -> {
+                    logsFailuresCounter.increment();
+                    if (++logsFailures < logsFailureThreshold) {
+                        return Mono.error(error);
+                    }
+                    if (!pollingReserves) {
+                        log.warn("eth_getLogs failed {} times in a row ({}); polling getReserves of {} pairs every block",
+                                logsFailures, error.getMessage(), pairs.size());
+                    }
+                    pollingReserves = true;
+                    nextLogsProbe = head + logsRetryBlocks;
+                    return pollReserves(head);
+                });
+    }
+
+    /**
+     * Loads the reserves of every tracked pair at {@code head} in one Multicall
+     */
+    private Mono<Set<PancakePair>> pollReserves(long head) {
+        if (head <= lastBlock.get()) {
+            return Mono.just(Set.of());
+        }
+        List<PancakePair> tracked = List.copyOf(pairs.values());
+        if (tracked.isEmpty()) {
+            lastBlock.set(head);
+            return Mono.just(Set.of());
+        }
+        List<Multicall3.Call> calls = tracked.stream()
+                .map(pair -> new Multicall3.Call(pair.getAddress(), true, GET_RESERVES_CALL))
+                .toList();
+        return aggregate(calls, head).map(results -> {
+            Set<PancakePair> changed = new LinkedHashSet<>();
+            for (int i = 0; i < results.length; i++) {
+                if (!results[i].success()) {
+                    log.warn("getReserves of PancakeSwap pair {} failed at block {}", tracked.get(i).getAddress(), head);
+                    continue;
+                }
+                PancakePair.Reserves reserves = new PancakePair.Reserves(
+                        Multicall3.uint(results[i].returnData(), 0),
+                        Multicall3.uint(results[i].returnData(), 1),
+                        head,
+                        -1);
+                if (tracked.get(i).update(reserves)) {
+                    changed.add(tracked.get(i));
+                }
+            }
+            lastBlock.set(head);
+            return changed;
+        });
+    }
+
+    /**
+     * Applies the Sync events of the tracked pairs up to {@code head}. The blocks are queried in
+     * ranges of at most {@code pancake.sync.max-block-range}; after a gap, up to
+     * {@code pancake.sync.max-batch-ranges} of them go out in one JSON-RPC batch.
+     */
+    private Mono<Set<PancakePair>> followSyncEvents(long head) {
+        long from = lastBlock.get() + 1;
+        if (head < from || pairs.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        List<String> addresses = List.copyOf(pairs.keySet());
+        List<Request<?, EthLog>> ranges = new ArrayList<>();
+        long to = from - 1;
+        while (to < head && ranges.size() < maxBatchRanges) {
+            long rangeFrom = to + 1;
+            to = Math.min(head, rangeFrom + maxBlockRange - 1);
+            EthFilter filter = new EthFilter(
+                    DefaultBlockParameter.valueOf(BigInteger.valueOf(rangeFrom)),
+                    DefaultBlockParameter.valueOf(BigInteger.valueOf(to)),
+                    addresses);
+            filter.addSingleTopic(SYNC_TOPIC);
+            ranges.add(web3j.ethGetLogs(filter));
+        }
+        long reached = to;
+        return rpc.sendBatch(ranges)
+                .map(responses -> {
+                    Set<PancakePair> changed = new LinkedHashSet<>();
+                    // Ranges are in block order, so later events overwrite earlier ones
+                    for (EthLog response : responses) {
+                        if (response.hasError()) {
+                            throw new IllegalStateException("eth_getLogs failed: " + response.getError().getMessage());
+                        }
+                        applySyncEvents(response, changed);
+                    }
+                    lastBlock.set(reached);
+                    return changed;
+                });
+    }
+
+    private void applySyncEvents(EthLog response, Set<PancakePair> changed) {
+        for (EthLog.LogResult<?> result : response.getLogs()) {
+            // Range queries never flag removed logs; the confirmation depth keeps reorged blocks out
+            if (!(result.get() instanceof Log event)) {
+                continue;
+            }
+            PancakePair pair = pairs.get(normalize(event.getAddress()));
+            if (pair == null) {
+                continue;
+            }
+            byte[] data = Numeric.hexStringToByteArray(event.getData());
+            PancakePair.Reserves reserves = new PancakePair.Reserves(
+                    Multicall3.uint(data, 0),
+                    Multicall3.uint(data, 1),
+                    event.getBlockNumber().longValueExact(),
+                    event.getLogIndex().longValueExact());
+            syncEventsCounter.increment();
+            if (pair.update(reserves)) {
+                changed.add(pair);
+            }
+        }
+    }
+
+    private Mono<Multicall3.Result[]> aggregate(List<Multicall3.Call> calls, long block) {
+        Transaction call = Transaction.createEthCallTransaction(
+                null,
+                props.getMulticallAddress(),
+                Numeric.toHexString(Multicall3.encodeAggregate3(calls)));
+        return rpc.send(web3j.ethCall(call, DefaultBlockParameter.valueOf(BigInteger.valueOf(block))))
+                .map(response -> decode(response, calls.size()));
+    }
+
+    private static Multicall3.Result[] decode(EthCall response, int expected) {
+        if (response.hasError() || response.isReverted()) {
+            throw new IllegalStateException("Multicall failed: " + (response.hasError()
+                    ? response.getError().getMessage()
+                    : response.getRevertReason()));
+        }
+        Multicall3.Result[] results = Multicall3.decodeAggregate3(Numeric.hexStringToByteArray(response.getValue()));
+        if (results.length != expected) {
+            throw new IllegalStateException("Multicall returned " + results.length + " results for " + expected + " calls");
+        }
+        return results;
+    }
+
+    private synchronized List<PancakeRoute> snapshotRoutes() {
+        return List.copyOf(routes);
+    }
+
+    private static String hopKey(String tokenA, String tokenB) {
+        return tokenA.compareTo(tokenB) < 0 ? tokenA + "/" + tokenB : tokenB + "/" + tokenA;
+    }
+
+    private static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+}
+
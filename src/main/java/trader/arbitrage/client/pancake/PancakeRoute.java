@@ -0,0 +1,122 @@
+package trader.arbitrage.client.pancake;
+
+import lombok.Getter;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Swap path through PancakeSwap V2 pairs, priced locally with the constant-product formula of
+ * the router: {@code getAmountsOut} results are reproduced exactly from the tracked reserves, for
+ * any input amount, without an RPC call.
+ */
+public final class PancakeRoute {
+
+    // PancakeSwap V2 charges 0.25% per hop
+    private static final BigInteger FEE_NUMERATOR = BigInteger.valueOf(9975);
+    private static final BigInteger FEE_DENOMINATOR = BigInteger.valueOf(10000);
+
+    @Getter
+    private final List<String> path;
+    // Resolved once the tracker knows the pairs; hop i swaps path[i] for path[i + 1]
+    private volatile PancakePair[] pairs;
+
+    PancakeRoute(List<String> path) {
+        this.path = List.copyOf(path);
+    }
+
+    void bind(PancakePair[] hopPairs) {
+        this.pairs = hopPairs.clone();
+    }
+
+    public boolean isBound() {
+        return pairs != null;
+    }
+
+    /**
+     * @return true if one of the hops goes through the pair
+     */
+    public boolean uses(PancakePair pair) {
+        PancakePair[] hops = pairs;
+        if (hops == null) {
+            return false;
+        }
+        for (PancakePair hop : hops) {
+            if (hop == pair) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Output amount of swapping {@code amountIn} along the path at the current reserves
+     *
+     * @return the amount in the smallest unit of the last token, or null if a reserve is unknown or empty
+     */
+    public BigInteger amountOut(BigInteger amountIn) {
+        return swap(amountIn, true);
+    }
+
+    /**
+     * Output amount of swapping {@code amountIn} of the last token back along the path to the first
+     *
+     * @return the amount in the smallest unit of the first token, or null if a reserve is unknown or empty
+     */
+    public BigInteger amountOutReverse(BigInteger amountIn) {
+        return swap(amountIn, false);
+    }
+
+    private BigInteger swap(BigInteger amountIn, boolean forward) {
+        PancakePair[] hops = pairs;
+        if (hops == null) {
+            return null;
+        }
+        BigInteger amount = amountIn;
+        for (int step = 0; step < hops.length; step++) {
+            int i = forward ? step : hops.length - 1 - step;
+            PancakePair.Reserves reserves = hops[i].getReserves();
+            if (reserves == null) {
+                return null;
+            }
+            // Token sold in this hop: path[i] going forward, path[i + 1] going back
+            String tokenIn = path.get(forward ? i : i + 1);
+            boolean zeroForOne = hops[i].getToken0().equals(tokenIn);
+            amount = getAmountOut(amount,
+                    zeroForOne ? reserves.reserve0() : reserves.reserve1(),
+                    zeroForOne ? reserves.reserve1() : reserves.reserve0());
+            if (amount == null) {
+                return null;
+            }
+        }
+        return amount;
+    }
+
+    /**
+     * @return highest block any hop's reserves are from, -1 if unknown
+     */
+    public long blockNumber() {
+        PancakePair[] hops = pairs;
+        long block = -1;
+        if (hops != null) {
+            for (PancakePair hop : hops) {
+                PancakePair.Reserves reserves = hop.getReserves();
+                block = Math.max(block, reserves != null ? reserves.blockNumber() : -1);
+            }
+        }
+        return block;
+    }
+
+    /**
+     * {@code PancakeLibrary.getAmountOut}: integer math with the swap fee taken from the input
+     */
+    static BigInteger getAmountOut(BigInteger amountIn, BigInteger reserveIn, BigInteger reserveOut) {
+        if (amountIn.signum() <= 0 || reserveIn.signum() <= 0 || reserveOut.signum() <= 0) {
+            return null;
+        }
+        BigInteger amountInWithFee = amountIn.multiply(FEE_NUMERATOR);
+        BigInteger numerator = amountInWithFee.multiply(reserveOut);
+        BigInteger denominator = reserveIn.multiply(FEE_DENOMINATOR).add(amountInWithFee);
+        return numerator.divide(denominator);
+    }
+}
@@ -0,0 +1,67 @@
+package trader.arbitrage.client.pancake;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the web3j requests of the Pancake pipeline on the dedicated {@code pancakeRpcExecutor}.
+ * web3j's own {@code sendAsync} goes through a static pool shared by the whole process; here a
+ * request waiting for the node only parks a virtual thread of its own.
+ */
+@Component
+public class PancakeRpc {
+
+    private final Web3j web3j;
+    private final Scheduler scheduler;
+
+    public PancakeRpc(Web3j web3j, @Qualifier("pancakeRpcExecutor") ExecutorService pancakeRpcExecutor) {
+        this.web3j = web3j;
+        this.scheduler = Schedulers.fromExecutorService(pancakeRpcExecutor, "pancake-rpc");
+    }
+
+    /**
+     * Sends the request when subscribed
+     */
+    public <T extends Response<?>> Mono<T> send(Request<?, T> request) {
+        return Mono.fromCallable(request::send).subscribeOn(scheduler);
+    }
+
+    /**
+     * Sends the requests as one JSON-RPC batch, i.e. a single HTTP round trip
+     *
+     * @return the responses in the order of the requests
+     */
+    public <T extends Response<?>> Mono<List<T>> sendBatch(List<? extends Request<?, T>> requests) {
+        if (requests.size() == 1) {
+            return send(requests.get(0)).map(List::of);
+        }
+        return Mono.fromCallable(() -> {
+            BatchRequest batch = web3j.newBatch();
+            requests.forEach(batch::add);
+            // The node may answer a batch in any order; JSON-RPC ids tie responses to requests
+            Map<Long, Response<?>> byId = new HashMap<>();
+            for (Response<?> response : batch.send().getResponses()) {
+                byId.put(response.getId(), response);
+            }
+            return requests.stream().map(request -> {
+                Response<?> response = byId.get(request.getId());
+                if (response == null) {
+                    throw new IllegalStateException("No response to " + request.getMethod() + " in the batch");
+                }
+                return request.getResponseType().cast(response);
+            }).toList();
+        }).subscribeOn(scheduler);
+    }
+}
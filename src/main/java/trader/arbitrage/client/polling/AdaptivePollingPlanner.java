@@ -0,0 +1,83 @@
+package trader.arbitrage.client.polling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import trader.arbitrage.client.ratelimit.RateLimiter;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.priceservice.PriceBoard;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Creates the {@link PollingBudget} of each polled source from the shared adaptive polling
+ * settings. With {@code polling.adaptive.enabled=false} the sources keep their fixed update
+ * interval.
+ */
+@Component
+public class AdaptivePollingPlanner {
+
+    private final PriceBoard priceBoard;
+    private final SymbolRegistry symbolRegistry;
+    private final MeterRegistry registry;
+    @Getter
+    private final boolean enabled;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double volatilityAlpha;
+    private final long thresholdBasisPoints;
+
+    public AdaptivePollingPlanner(
+            PriceBoard priceBoard,
+            SymbolRegistry symbolRegistry,
+            MeterRegistry registry,
+            @Value("${polling.adaptive.enabled:true}") boolean enabled,
+            @Value("${polling.adaptive.min-interval:2000}") long minIntervalMillis,
+            @Value("${polling.adaptive.max-interval:60000}") long maxIntervalMillis,
+            @Value("${polling.adaptive.volatility-alpha:0.2}") double volatilityAlpha,
+            @Value("${arbitrage.threshold}") double threshold) {
+        this.priceBoard = priceBoard;
+        this.symbolRegistry = symbolRegistry;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.volatilityAlpha = volatilityAlpha;
+        this.thresholdBasisPoints = BigDecimal.valueOf(threshold)
+                .movePointRight(2)
+                .setScale(0, RoundingMode.CEILING)
+                .longValueExact();
+    }
+
+    /**
+     * @param name              source name, used as the metric tag
+     * @param symbolIds         polled symbols; an item of the budget is a position in this array
+     * @param maxSymbolsPerCall symbols one request can carry
+     * @param callsPerMinute    requests per minute the source may spend on polling
+     */
+    public PollingBudget budget(String name, Venue venue, int[] symbolIds, int maxSymbolsPerCall, int callsPerMinute) {
+        DistributionSummary staleness = DistributionSummary.builder("polling.staleness")
+                .description("Age of a symbol's price on a polled source when it is requested again")
+                .baseUnit("milliseconds")
+                .tag("source", name)
+                .register(registry);
+        return new PollingBudget(
+                name,
+                venue,
+                symbolIds,
+                maxSymbolsPerCall,
+                new RateLimiter(name + " polling", callsPerMinute, 1, registry),
+                callsPerMinute,
+                minIntervalMillis,
+                maxIntervalMillis,
+                volatilityAlpha,
+                thresholdBasisPoints,
+                priceBoard,
+                symbolRegistry,
+                staleness);
+    }
+}
@@ -0,0 +1,247 @@
+package trader.arbitrage.client.polling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import trader.arbitrage.client.ratelimit.RateLimiter;
+import trader.arbitrage.model.FixedPoint;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.priceservice.PriceBoard;
+import trader.arbitrage.service.priceservice.VenueQuote;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.util.Arrays;
+
+/**
+ * Splits the call budget of one polled source across its symbols. Every symbol gets a refresh
+ * interval proportional to the inverse of its score: the volatility of its price on this source
+ * relative to the other symbols, times the closeness of its best cross-venue spread to the
+ * arbitrage threshold. Hot symbols are refreshed down to the minimum interval, cold ones up to
+ * the maximum interval.
+ * <p>
+ * A call is taken from a separate {@link RateLimiter} running at the polling budget, so the source
+ * never spends more calls than configured, however many symbols are due. A call that goes out for
+ * a due symbol also carries symbols that are more than half way through their interval, as long as
+ * there is room in the request.
+ */
+@Slf4j
+public class PollingBudget {
+
+    private static final Venue[] VENUES = Venue.values();
+    // Symbols past this share of their interval ride along with a due one
+    private static final double PIGGYBACK_URGENCY = 0.5;
+    // Closeness weight at and beyond the threshold
+    private static final double MAX_PROXIMITY = 10;
+
+    @Getter
+    private final String name;
+    private final Venue venue;
+    private final int[] symbolIds;
+    private final int[] itemBySymbol;
+    private final RateLimiter callBudget;
+    private final double symbolPollsPerMinute;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double volatilityAlpha;
+    private final long thresholdBasisPoints;
+    private final PriceBoard priceBoard;
+    private final SymbolRegistry symbolRegistry;
+    private final DistributionSummary stalenessSummary;
+
+    // Indexed by item, guarded by this
+    private final long[] lastPolledMillis;
+    private final long[] intervalMillis;
+    private final double[] volatilityBasisPoints;
+    private final long[] lastMantissas;
+    private final int[] lastScales;
+    private final double[] scores;
+    private final double[] urgencies;
+    private final VenueQuote quote = new VenueQuote();
+
+    PollingBudget(
+            String name,
+            Venue venue,
+            int[] symbolIds,
+            int maxSymbolsPerCall,
+            RateLimiter callBudget,
+            int callsPerMinute,
+            long minIntervalMillis,
+            long maxIntervalMillis,
+            double volatilityAlpha,
+            long thresholdBasisPoints,
+            PriceBoard priceBoard,
+            SymbolRegistry symbolRegistry,
+            DistributionSummary stalenessSummary) {
+        this.name = name;
+        this.venue = venue;
+        this.symbolIds = symbolIds.clone();
+        this.callBudget = callBudget;
+        this.symbolPollsPerMinute = (double) Math.max(1, callsPerMinute)
+                * Math.max(1, Math.min(maxSymbolsPerCall, symbolIds.length));
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+        this.volatilityAlpha = volatilityAlpha;
+        this.thresholdBasisPoints = Math.max(1, thresholdBasisPoints);
+        this.priceBoard = priceBoard;
+        this.symbolRegistry = symbolRegistry;
+        this.stalenessSummary = stalenessSummary;
+
+        int items = symbolIds.length;
+        this.itemBySymbol = new int[symbolRegistry.capacity()];
+        Arrays.fill(itemBySymbol, -1);
+        for (int item = 0; item < items; item++) {
+            itemBySymbol[symbolIds[item]] = item;
+        }
+        this.lastPolledMillis = new long[items];
+        this.intervalMillis = new long[items];
+        this.volatilityBasisPoints = new double[items];
+        this.lastMantissas = new long[items];
+        this.lastScales = new int[items];
+        this.scores = new double[items];
+        this.urgencies = new double[items];
+        // Everything is due on the first pass
+        Arrays.fill(intervalMillis, minIntervalMillis);
+    }
+
+    public int size() {
+        return symbolIds.length;
+    }
+
+    public int symbolId(int item) {
+        return symbolIds[item];
+    }
+
+    /**
+     * Recomputes the refresh intervals and returns the items to poll now
+     *
+     * @return item indexes, most overdue first; empty if no item has reached its interval
+     */
+    public synchronized int[] due(long nowMillis) {
+        updateIntervals();
+        double maxUrgency = 0;
+        int candidates = 0;
+        for (int item = 0; item < symbolIds.length; item++) {
+            double urgency = (double) (nowMillis - lastPolledMillis[item]) / intervalMillis[item];
+            urgencies[item] = urgency;
+            maxUrgency = Math.max(maxUrgency, urgency);
+            if (urgency >= PIGGYBACK_URGENCY) {
+                candidates++;
+            }
+        }
+        if (maxUrgency < 1) {
+            return new int[0];
+        }
+        int[] due = new int[candidates];
+        for (int item = 0, i = 0; item < symbolIds.length; item++) {
+            if (urgencies[item] >= PIGGYBACK_URGENCY) {
+                due[i++] = item;
+            }
+        }
+        // Runs once per tick over the due symbols only
+        return Arrays.stream(due)
+                .boxed()
+                .sorted((a, b) -> Double.compare(urgencies[b], urgencies[a]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Takes one call from the polling budget
+     */
+    public boolean tryAcquireCall() {
+        return callBudget.tryAcquire();
+    }
+
+    /**
+     * Marks an item as requested; it is not due again before its interval has passed
+     */
+    public synchronized void polled(int item, long nowMillis) {
+        if (lastPolledMillis[item] != 0) {
+            stalenessSummary.record(nowMillis - lastPolledMillis[item]);
+        }
+        lastPolledMillis[item] = nowMillis;
+    }
+
+    /**
+     * Feeds a price fetched from the source into the volatility estimate of its symbol
+     */
+    public synchronized void observe(int symbolId, TokenPrice price) {
+        int item = symbolId >= 0 && symbolId < itemBySymbol.length ? itemBySymbol[symbolId] : -1;
+        if (item < 0 || !price.hasPrice()) {
+            return;
+        }
+        long previous = lastMantissas[item];
+        if (previous > 0) {
+            try {
+                long current = FixedPoint.rescale(price.getPriceMantissa(), price.getPriceScale(), lastScales[item]);
+                long change = Math.abs(FixedPoint.spreadBasisPoints(current, previous));
+                volatilityBasisPoints[item] += volatilityAlpha * (change - volatilityBasisPoints[item]);
+            } catch (ArithmeticException e) {
+                log.debug("{} price of {} out of fixed-point range: {}", name, price.getSymbol(), e.getMessage());
+            }
+        }
+        lastMantissas[item] = price.getPriceMantissa();
+        lastScales[item] = price.getPriceScale();
+    }
+
+    /**
+     * Spreads the symbol polls per minute over the items by score, clamped to the interval bounds
+     */
+    private void updateIntervals() {
+        int items = symbolIds.length;
+        double meanVolatility = 0;
+        for (int item = 0; item < items; item++) {
+            meanVolatility += volatilityBasisPoints[item];
+        }
+        meanVolatility = items > 0 ? meanVolatility / items : 0;
+
+        double totalScore = 0;
+        for (int item = 0; item < items; item++) {
+            double volatility = meanVolatility > 0 ? volatilityBasisPoints[item] / meanVolatility : 0;
+            double score = (1 + volatility) * proximity(symbolIds[item]);
+            scores[item] = score;
+            totalScore += score;
+        }
+        for (int item = 0; item < items; item++) {
+            double pollsPerMinute = symbolPollsPerMinute * scores[item] / totalScore;
+            long interval = (long) (60_000 / pollsPerMinute);
+            intervalMillis[item] = Math.max(minIntervalMillis, Math.min(maxIntervalMillis, interval));
+        }
+    }
+
+    /**
+     * @return 1 for a symbol without a spread, rising to {@link #MAX_PROXIMITY} as the widest spread
+     * between this venue and any other approaches the threshold
+     */
+    private double proximity(int symbolId) {
+        if (!priceBoard.read(symbolId, venue, quote) || !quote.hasPrice()) {
+            return 1;
+        }
+        long price;
+        int scale;
+        try {
+            scale = symbolRegistry.scale(symbolId, quote.getPriceMantissa(), quote.getPriceScale());
+            price = FixedPoint.rescale(quote.getPriceMantissa(), quote.getPriceScale(), scale);
+        } catch (ArithmeticException e) {
+            return 1;
+        }
+        long widest = 0;
+        for (Venue other : VENUES) {
+            if (other == venue || !priceBoard.read(symbolId, other, quote) || !quote.hasPrice()) {
+                continue;
+            }
+            try {
+                long otherPrice = FixedPoint.rescale(quote.getPriceMantissa(), quote.getPriceScale(), scale);
+                long spread = Math.min(price, otherPrice) > 0
+                        ? FixedPoint.spreadBasisPoints(Math.max(price, otherPrice), Math.min(price, otherPrice))
+                        : 0;
+                widest = Math.max(widest, spread);
+            } catch (ArithmeticException ignored) {
+                // The other venue's price is unusable for this symbol
+            }
+        }
+        double distance = 1 - (double) Math.min(widest, thresholdBasisPoints) / thresholdBasisPoints;
+        return 1 / Math.max(1 / MAX_PROXIMITY, distance);
+    }
+}
@@ -0,0 +1,11 @@
+package trader.arbitrage.client.ratelimit;
+
+/**
+ * Thrown instead of sending a request when the rate limiter has no slot within the allowed wait
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String client) {
+        super("Rate limit of " + client + " reached, request not sent");
+    }
+}
@@ -0,0 +1,170 @@
+package trader.arbitrage.client.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebClient filter that runs every request through a {@link RateLimiter} and feeds the server's
+ * rate limit headers back into it.
+ * <p>
+ * A paced filter waits for a slot before each request and fails with
+ * {@link RateLimitExceededException} if none is free within {@code maxWait}. An unpaced filter
+ * leaves pacing to the caller (e.g. a queue acquiring from the same limiter) and only learns from
+ * responses. {@code 429 Too Many Requests} is retried after {@code Retry-After}, or after an
+ * exponential delay if the header is missing.
+ */
+@Slf4j
+public class RateLimitExchangeFilter implements ExchangeFilterFunction {
+
+    private static final long FALLBACK_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimiter limiter;
+    private final boolean paced;
+    private final Duration maxWait;
+    private final int maxRetries;
+
+    private final Counter throttledCounter;
+    private final Counter rejectedCounter;
+    private final Timer waitTimer;
+
+    public RateLimitExchangeFilter(RateLimiter limiter, boolean paced, Duration maxWait, int maxRetries,
+                                   MeterRegistry registry) {
+        this.limiter = limiter;
+        this.paced = paced;
+        this.maxWait = maxWait;
+        this.maxRetries = maxRetries;
+        this.throttledCounter = Counter.builder("http.rate-limit.throttled")
+                .description("Responses with status 429 Too Many Requests")
+                .tag("client", limiter.getName())
+                .register(registry);
+        this.rejectedCounter = Counter.builder("http.rate-limit.rejected")
+                .description("Requests not sent because no rate limit slot was free in time")
+                .tag("client", limiter.getName())
+                .register(registry);
+        this.waitTimer = Timer.builder("http.rate-limit.wait")
+                .description("Time a request waited for a rate limit slot")
+                .tag("client", limiter.getName())
+                .register(registry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return exchange(request, next, 0, 0);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt, long delayNanos) {
+        return acquire(delayNanos)
+                .then(Mono.defer(() -> next.exchange(request)))
+                .flatMap(response -> {
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    adapt(headers);
+                    if (response.statusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                        return Mono.just(response);
+                    }
+                    throttledCounter.increment();
+                    long retryAfter = retryAfterNanos(headers);
+                    long delay = retryAfter > 0 ? retryAfter : FALLBACK_RETRY_NANOS << Math.min(attempt, 10);
+                    limiter.pauseUntil(System.nanoTime() + delay);
+                    if (attempt >= maxRetries) {
+                        return Mono.just(response);
+                    }
+                    log.warn("{} throttled (429), retrying in {} ms", limiter.getName(), TimeUnit.NANOSECONDS.toMillis(delay));
+                    return response.releaseBody()
+                            .then(exchange(request, next, attempt + 1, delay));
+                });
+    }
+
+    /**
+     * @param delayNanos minimum delay before the request, used for retries of an unpaced filter
+     */
+    private Mono<Void> acquire(long delayNanos) {
+        if (!paced) {
+            return delayNanos > 0 ? Mono.delay(Duration.ofNanos(delayNanos)).then() : Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long wait = limiter.reserve(maxWait);
+            if (wait < 0) {
+                rejectedCounter.increment();
+                return Mono.error(new RateLimitExceededException(limiter.getName()));
+            }
+            waitTimer.record(wait, TimeUnit.NANOSECONDS);
+            return wait > 0 ? Mono.delay(Duration.ofNanos(wait)).then() : Mono.<Void>empty();
+        });
+    }
+
+    /**
+     * Paces by {@code X-RateLimit-Remaining}/{@code X-RateLimit-Reset} (or the unprefixed
+     * {@code RateLimit-*} draft headers) when the server sends them
+     */
+    private void adapt(HttpHeaders headers) {
+        String remaining = first(headers, "X-RateLimit-Remaining", "RateLimit-Remaining");
+        String reset = first(headers, "X-RateLimit-Reset", "RateLimit-Reset");
+        if (remaining == null || reset == null) {
+            return;
+        }
+        try {
+            long nanosUntilReset = resetNanos(Double.parseDouble(reset.trim()));
+            limiter.adapt(Long.parseLong(remaining.trim()), nanosUntilReset);
+        } catch (NumberFormatException e) {
+            log.debug("{} sent unparseable rate limit headers: remaining={}, reset={}", limiter.getName(), remaining, reset);
+        }
+    }
+
+    /**
+     * The reset header is either seconds until the reset or an epoch timestamp in seconds or milliseconds
+     */
+    private static long resetNanos(double reset) {
+        long nowMillis = System.currentTimeMillis();
+        double millis;
+        if (reset > 1e12) {
+            millis = reset - nowMillis;
+        } else if (reset > 1e9) {
+            millis = reset * 1000 - nowMillis;
+        } else {
+            millis = reset * 1000;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, (long) millis));
+    }
+
+    /**
+     * {@code Retry-After} as delay-seconds or an HTTP date
+     *
+     * @return nanoseconds to wait, 0 if the header is missing or invalid
+     */
+    private static long retryAfterNanos(HttpHeaders headers) {
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                long millis = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli() - System.currentTimeMillis();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+            } catch (RuntimeException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    private static String first(HttpHeaders headers, String name, String alternative) {
+        String value = headers.getFirst(name);
+        return value != null ? value : headers.getFirst(alternative);
+    }
+}
@@ -0,0 +1,115 @@
+package trader.arbitrage.client.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free rate limiter using the generic cell rate algorithm (GCRA). The only state is the
+ * theoretical arrival time (TAT) of the next request. Each admitted request moves it forward by the
+ * emission interval with a single CAS. Up to {@code burst} requests may go out back to back.
+ * <p>
+ * The pace adapts to the server: {@link #pauseUntil(long)} honours {@code Retry-After}, and
+ * {@link #adapt(long, long)} stretches the interval so the remaining quota of a window lasts until
+ * it resets.
+ */
+@Slf4j
+public class RateLimiter {
+
+    @Getter
+    private final String name;
+    private final long baseIntervalNanos;
+    private final int burst;
+    private final AtomicLong theoreticalArrivalNanos;
+    private volatile long emissionIntervalNanos;
+
+    public RateLimiter(String name, int callsPerMinute, int burst, MeterRegistry registry) {
+        this.name = name;
+        this.baseIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, callsPerMinute);
+        this.burst = Math.max(1, burst);
+        this.emissionIntervalNanos = baseIntervalNanos;
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+        Gauge.builder("http.rate-limit.interval", this, limiter -> limiter.emissionIntervalNanos / 1_000_000d)
+                .description("Current minimum spacing of requests in milliseconds")
+                .tag("client", name)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private long toleranceNanos(long interval) {
+        return interval * (burst - 1);
+    }
+
+    /**
+     * Reserves a slot if it is available within {@code maxWait}
+     *
+     * @return nanoseconds to wait before sending, or -1 if the slot is further away (nothing reserved)
+     */
+    public long reserve(Duration maxWait) {
+        long maxWaitNanos = maxWait.toNanos();
+        while (true) {
+            long now = System.nanoTime();
+            long interval = emissionIntervalNanos;
+            long arrival = theoreticalArrivalNanos.get();
+            long wait = Math.max(0, arrival - toleranceNanos(interval) - now);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(arrival, Math.max(arrival, now) + interval)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Takes a slot only if one is free right now
+     */
+    public boolean tryAcquire() {
+        return reserve(Duration.ZERO) == 0;
+    }
+
+    /**
+     * @return nanoseconds until a slot is free, 0 if one is free now
+     */
+    public long nanosUntilAvailable() {
+        long interval = emissionIntervalNanos;
+        return Math.max(0, theoreticalArrivalNanos.get() - toleranceNanos(interval) - System.nanoTime());
+    }
+
+    /**
+     * Admits nothing before the given {@link System#nanoTime()} instant
+     */
+    public void pauseUntil(long nanoTime) {
+        long target = nanoTime + toleranceNanos(emissionIntervalNanos);
+        long arrival;
+        do {
+            arrival = theoreticalArrivalNanos.get();
+            if (arrival >= target) {
+                return;
+            }
+        } while (!theoreticalArrivalNanos.compareAndSet(arrival, target));
+        log.info("{} rate limiter paused for {} ms", name, TimeUnit.NANOSECONDS.toMillis(nanoTime - System.nanoTime()));
+    }
+
+    /**
+     * Paces requests so the remaining quota lasts until the server's window resets; never faster
+     * than the configured rate
+     */
+    public void adapt(long remaining, long nanosUntilReset) {
+        if (remaining <= 0) {
+            pauseUntil(System.nanoTime() + nanosUntilReset);
+            return;
+        }
+        long interval = Math.max(baseIntervalNanos, nanosUntilReset / remaining);
+        if (interval != emissionIntervalNanos) {
+            log.debug("{} rate limiter interval set to {} ms ({} calls left, reset in {} ms)", name,
+                    TimeUnit.NANOSECONDS.toMillis(interval), remaining, TimeUnit.NANOSECONDS.toMillis(nanosUntilReset));
+            emissionIntervalNanos = interval;
+        }
+    }
+}
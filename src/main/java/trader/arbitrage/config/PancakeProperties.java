@@ -4,6 +4,7 @@ import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import trader.arbitrage.client.pancake.Multicall3;
 
 import java.util.Map;
 
@@ -14,6 +15,11 @@ public class PancakeProperties {
     private String routerAddress;
     private String wrappedBnb;
     private String busd;
-    private long updateInterval = 5000; // по умолчанию 30 сек
+    private String multicallAddress = Multicall3.DEFAULT_ADDRESS;
+    private String factoryAddress = "0xcA143Ce32Fe78f1f7019d7d551a6402fC5350c73"; // PancakeSwap V2
+    // reserves: локальный расчёт по резервам пар и событиям Sync; quote: getAmountsOut через multicall
+    private String pricing = "reserves";
+    private long blockPollInterval = 1000; // опрос eth_blockNumber, мс; котировки обновляются только на новом блоке
+    private long staleAfter = 15000; // мс без подтверждённого свежего блока, после которых котировки Pancake не участвуют в поиске спреда
     private Map<String, String> tokens;      // symbol -> tokenAddress
 }
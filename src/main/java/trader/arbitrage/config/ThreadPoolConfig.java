@@ -3,6 +3,7 @@ package trader.arbitrage.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 @Configuration
@@ -12,4 +13,12 @@ public class ThreadPoolConfig {
     public Executor jdbcExecutor() {
         return Executors.newCachedThreadPool();
     }
-}
\ No newline at end of file
+
+    /**
+     * Blocking web3j requests of the Pancake pipeline, one virtual thread per call
+     */
+    @Bean(name = "pancakeRpcExecutor")
+    public ExecutorService pancakeRpcExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pancake-rpc-", 0).factory());
+    }
+}
@@ -3,9 +3,12 @@ package trader.arbitrage.config.metrics;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import trader.arbitrage.model.Venue;
 import trader.arbitrage.service.arbitrage.metricscounter.ArbitrageOpportunityProvider;
+import trader.arbitrage.service.priceservice.PriceBoard;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -29,6 +32,25 @@ public class MetricsConfig {
                 .register(registry);
     }
 
+    /**
+     * Seconds since each venue last confirmed its prices; NaN until a venue does
+     */
+    @Bean
+    public MeterBinder venueStalenessMetrics(PriceBoard priceBoard) {
+        return registry -> {
+            for (Venue venue : Venue.values()) {
+                Gauge.builder("price.venue.age", () -> {
+                            long age = priceBoard.venueAge(venue, System.currentTimeMillis());
+                            return age >= 0 ? age / 1000.0 : Double.NaN;
+                        })
+                        .description("Seconds since the venue last confirmed that its prices are current")
+                        .baseUnit("seconds")
+                        .tag("venue", venue.exchangeName())
+                        .register(registry);
+            }
+        };
+    }
+
     @Bean
     public Counter apiCallsCounter(MeterRegistry registry) {
         return Counter.builder("api.calls.total")
@@ -3,6 +3,7 @@ package trader.arbitrage.config.metrics;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.experimental.UtilityClass;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.function.Supplier;
@@ -18,6 +19,14 @@ public class TimerUtils {
                 .doOnError(error -> stopTimer(sample, registry, name, tags));
     }
 
+    public <T> Flux<T> timedFlux(Supplier<Flux<T>> supplier, MeterRegistry registry, String name, String... tags) {
+        Timer.Sample sample = Timer.start(registry);
+
+        return supplier.get()
+                .doOnComplete(() -> stopTimer(sample, registry, name, tags))
+                .doOnError(error -> stopTimer(sample, registry, name, tags));
+    }
+
     private void stopTimer(Timer.Sample sample, MeterRegistry registry, String name, String... tags) {
         sample.stop(
                 Timer.builder(name)
@@ -0,0 +1,50 @@
+package trader.arbitrage.config.webclient;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class ClickHouseWebClientConfiguration {
+
+    /**
+     * Client of the ClickHouse HTTP interface for RowBinary inserts; queries stay on JDBC
+     */
+    @Bean
+    public WebClient clickHouseHttpClient(
+            @Value("${clickhouse.http.url:http://localhost:8123}") String baseUrl,
+            @Value("${clickhouse.user}") String user,
+            @Value("${clickhouse.password}") String password,
+            @Value("${clickhouse.http.connection.timeout:3000}") int connectionTimeoutMillis,
+            @Value("${clickhouse.http.read.timeout:30000}") int readTimeoutMillis
+    ) {
+        // Inserts are few and large; a small pool of kept-alive connections is enough
+        ConnectionProvider provider = ConnectionProvider.builder("clickhouse-pool")
+                .maxConnections(4)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .pendingAcquireTimeout(Duration.ofSeconds(45))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .responseTimeout(Duration.ofMillis(readTimeoutMillis))
+                .option(io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeoutMillis);
+
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .defaultHeader("X-ClickHouse-User", user)
+                .defaultHeader("X-ClickHouse-Key", password)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package trader.arbitrage.config.webclient;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +16,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
+import trader.arbitrage.client.ratelimit.RateLimitExchangeFilter;
+import trader.arbitrage.client.ratelimit.RateLimiter;
 
 import java.time.Duration;
 
@@ -30,7 +33,11 @@ public class CoinCapWebClientConfiguration {
             @Value("${coincap.api.url}") String baseUrl,
             @Value("${coincap.api.connection.timeout:3000}") int connectionTimeoutMillis,
             @Value("${coincap.api.read.timeout:5000}") int readTimeoutMillis,
-            @Value("${coincap.api.max.memory.size:16777216}") int maxInMemorySize // 16MB default
+            @Value("${coincap.api.max.memory.size:16777216}") int maxInMemorySize, // 16MB default
+            @Value("${http.rate-limit.max-wait:10000}") long maxWaitMillis,
+            @Value("${http.rate-limit.max-retries:3}") int maxThrottledRetries,
+            RateLimiter coinCapRateLimiter,
+            MeterRegistry meterRegistry
     ) {
         String apiKey = dotenv.get("COINMARKETCAP_API_KEY");
         // Create a connection provider with connection pooling
@@ -59,6 +66,8 @@ public class CoinCapWebClientConfiguration {
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader("X-CMC_PRO_API_KEY", apiKey)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new RateLimitExchangeFilter(coinCapRateLimiter, true, Duration.ofMillis(maxWaitMillis),
+                        maxThrottledRetries, meterRegistry))
                 .exchangeStrategies(exchangeStrategies)
                 .filter(logRequest())
                 .filter(logResponse())
@@ -1,5 +1,6 @@
 package trader.arbitrage.config.webclient;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +15,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
+import trader.arbitrage.client.ratelimit.RateLimitExchangeFilter;
+import trader.arbitrage.client.ratelimit.RateLimiter;
 
 import java.time.Duration;
 
@@ -27,7 +30,11 @@ public class DexScreenerWebClientConfiguration {
             @Value("${dexscreener.api.url:https://api.dexscreener.com}") String baseUrl,
             @Value("${dexscreener.api.connection.timeout:3000}") int connectionTimeoutMillis,
             @Value("${dexscreener.api.read.timeout:5000}") int readTimeoutMillis,
-            @Value("${dexscreener.api.max.memory.size:16777216}") int maxInMemorySize // 16MB default
+            @Value("${dexscreener.api.max.memory.size:16777216}") int maxInMemorySize, // 16MB default
+            @Value("${http.rate-limit.max-wait:10000}") long maxWaitMillis,
+            @Value("${http.rate-limit.max-retries:3}") int maxThrottledRetries,
+            RateLimiter dexScreenerRateLimiter,
+            MeterRegistry meterRegistry
     ) {
         // Create a connection provider with connection pooling
         ConnectionProvider provider = ConnectionProvider.builder("dexscreener-pool")
@@ -53,6 +60,8 @@ public class DexScreenerWebClientConfiguration {
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new RateLimitExchangeFilter(dexScreenerRateLimiter, true, Duration.ofMillis(maxWaitMillis),
+                        maxThrottledRetries, meterRegistry))
                 .exchangeStrategies(exchangeStrategies)
                 .filter(logRequest())
                 .filter(logResponse())
@@ -0,0 +1,76 @@
+package trader.arbitrage.config.webclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import trader.arbitrage.client.ratelimit.RateLimitExchangeFilter;
+import trader.arbitrage.client.ratelimit.RateLimiter;
+
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class MexcWebClientConfiguration {
+
+    @Bean
+    public WebClient mexcRestClient(
+            @Value("${mexc.rest.url:https://contract.mexc.com}") String baseUrl,
+            @Value("${mexc.rest.connection.timeout:3000}") int connectionTimeoutMillis,
+            @Value("${mexc.rest.read.timeout:5000}") int readTimeoutMillis,
+            @Value("${mexc.rest.max.memory.size:16777216}") int maxInMemorySize, // 16MB default
+            @Value("${http.rate-limit.max-wait:10000}") long maxWaitMillis,
+            @Value("${http.rate-limit.max-retries:3}") int maxThrottledRetries,
+            RateLimiter mexcRestRateLimiter,
+            MeterRegistry meterRegistry
+    ) {
+        // Create a connection provider with connection pooling
+        ConnectionProvider provider = ConnectionProvider.builder("mexc-rest-pool")
+                .maxConnections(10)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .pendingAcquireTimeout(Duration.ofSeconds(45))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+
+        // Create an HTTP client with connection pooling and timeouts
+        HttpClient httpClient = HttpClient.create(provider)
+                .responseTimeout(Duration.ofMillis(readTimeoutMillis))
+                .option(io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeoutMillis);
+
+        // The all-contracts ticker snapshot is larger than the default 256KB buffer
+        ExchangeStrategies exchangeStrategies = ExchangeStrategies.builder()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new RateLimitExchangeFilter(mexcRestRateLimiter, true, Duration.ofMillis(maxWaitMillis),
+                        maxThrottledRetries, meterRegistry))
+                .exchangeStrategies(exchangeStrategies)
+                .filter(logResponse())
+                .build();
+    }
+
+    // Logging filter for responses
+    private ExchangeFilterFunction logResponse() {
+        return ExchangeFilterFunction.ofResponseProcessor(clientResponse -> {
+            if (log.isDebugEnabled()) {
+                log.debug("MEXC REST Response status: {}", clientResponse.statusCode());
+            }
+            return Mono.just(clientResponse);
+        });
+    }
+}
@@ -1,25 +1,58 @@
 package trader.arbitrage.config.webclient;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
 import org.web3j.tx.ReadonlyTransactionManager;
 import org.web3j.tx.TransactionManager;
 import org.web3j.tx.gas.ContractGasProvider;
 import org.web3j.tx.gas.DefaultGasProvider;
+import trader.arbitrage.client.pancake.FailoverHttpService;
 import trader.arbitrage.config.PancakeProperties;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @RequiredArgsConstructor
 public class PancakeWeb3jConfig {
     private final PancakeProperties props;
 
+    /**
+     * Keep-alive pool sized for the Pancake pipeline: a few concurrent calls per block, each endpoint
+     * reused across blocks instead of reconnecting
+     */
+    @Bean
+    public OkHttpClient bscHttpClient(
+            @Value("${bsc.rpc.max-idle-connections:8}") int maxIdleConnections,
+            @Value("${bsc.rpc.keep-alive:5m}") Duration keepAlive,
+            @Value("${bsc.rpc.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${bsc.rpc.read-timeout:5s}") Duration readTimeout) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                // Bounds one attempt; failover to the next endpoint starts a new call
+                .callTimeout(connectTimeout.plus(readTimeout))
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
     @Bean
-    public Web3j web3j(@Value("${bsc.rpc-url}") String rpcUrl) {
-        return Web3j.build(new HttpService(rpcUrl));
+    public Web3j web3j(
+            @Value("${bsc.rpc-urls:${bsc.rpc-url}}") List<String> rpcUrls,
+            @Value("${bsc.rpc.failover-cooldown:30000}") long failoverCooldownMillis,
+            @Value("${bsc.rpc.max-requests-per-host:16}") int maxRequestsPerHost,
+            OkHttpClient bscHttpClient,
+            MeterRegistry registry) {
+        return Web3j.build(new FailoverHttpService(
+                rpcUrls, bscHttpClient, failoverCooldownMillis, maxRequestsPerHost, registry));
     }
 
     @Bean
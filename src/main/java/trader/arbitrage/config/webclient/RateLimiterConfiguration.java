@@ -0,0 +1,46 @@
+package trader.arbitrage.config.webclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import trader.arbitrage.client.ratelimit.RateLimiter;
+
+/**
+ * One rate limiter per REST source, shared by its WebClient and anything that paces requests to it
+ */
+@Configuration
+public class RateLimiterConfiguration {
+
+    @Bean
+    public RateLimiter coinCapRateLimiter(
+            @Value("${coincap.api.calls-per-minute:25}") int callsPerMinute,
+            @Value("${coincap.api.burst:1}") int burst,
+            MeterRegistry registry) {
+        return new RateLimiter("CoinMarketCap", callsPerMinute, burst, registry);
+    }
+
+    @Bean
+    public RateLimiter dexScreenerRateLimiter(
+            @Value("${dexscreener.api.calls-per-minute:45}") int callsPerMinute,
+            @Value("${dexscreener.api.burst:5}") int burst,
+            MeterRegistry registry) {
+        return new RateLimiter("DEXScreener", callsPerMinute, burst, registry);
+    }
+
+    @Bean
+    public RateLimiter mexcRestRateLimiter(
+            @Value("${mexc.rest.calls-per-minute:600}") int callsPerMinute,
+            @Value("${mexc.rest.burst:20}") int burst,
+            MeterRegistry registry) {
+        return new RateLimiter("MEXC", callsPerMinute, burst, registry);
+    }
+
+    @Bean
+    public RateLimiter telegramRateLimiter(
+            @Value("${telegram.rate-limit.messages-per-minute:20}") int messagesPerMinute,
+            @Value("${telegram.rate-limit.burst:3}") int burst,
+            MeterRegistry registry) {
+        return new RateLimiter("Telegram", messagesPerMinute, burst, registry);
+    }
+}
@@ -1,6 +1,7 @@
 package trader.arbitrage.config.webclient;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
+import trader.arbitrage.client.ratelimit.RateLimitExchangeFilter;
+import trader.arbitrage.client.ratelimit.RateLimiter;
 
 import java.time.Duration;
 
@@ -29,7 +32,11 @@ public class TelegramWebClientConfiguration {
     public WebClient telegramWebClient(
             @Value("${telegram.api.url:https://api.telegram.org/bot}") String baseUrl,
             @Value("${telegram.api.connection.timeout:3000}") int connectionTimeoutMillis,
-            @Value("${telegram.api.read.timeout:5000}") int readTimeoutMillis
+            @Value("${telegram.api.read.timeout:5000}") int readTimeoutMillis,
+            @Value("${http.rate-limit.max-wait:10000}") long maxWaitMillis,
+            @Value("${http.rate-limit.max-retries:3}") int maxThrottledRetries,
+            RateLimiter telegramRateLimiter,
+            MeterRegistry meterRegistry
     ) {
         String botToken = dotenv.get("TELEGRAM_BOT_TOKEN");
 
@@ -56,6 +63,9 @@ public class TelegramWebClientConfiguration {
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Paced by the outbound notification queue; the filter only learns from responses
+                .filter(new RateLimitExchangeFilter(telegramRateLimiter, false, Duration.ofMillis(maxWaitMillis),
+                        maxThrottledRetries, meterRegistry))
                 .filter(logRequest())
                 .filter(logResponse())
                 .observationRegistry(observationRegistry)
@@ -0,0 +1,179 @@
+package trader.arbitrage.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.clickhouse.ArbitrageEventRecord;
+import trader.arbitrage.model.clickhouse.TokenPriceRecord;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Inserts into ClickHouse over its HTTP interface: rows are encoded in {@code RowBinary},
+ * compressed into an LZ4 frame ({@code Content-Encoding: lz4}) and posted through the non-blocking
+ * reactor-netty client, so no thread waits for the server. The text {@code INSERT ... VALUES}
+ * batches of {@link ClickHouseRepository} remain available through JDBC.
+ * <p>
+ * Each table keeps its encoder and LZ4 frame between batches, so a batch allocates only the copy
+ * of its request body that the client holds until the server answers.
+ */
+@Slf4j
+@Repository
+public class ClickHouseHttpWriter {
+
+    static final String PRICE_INSERT =
+            "INSERT INTO token_prices (symbol, exchange, price, timestamp) FORMAT RowBinary";
+    static final String EVENT_INSERT =
+            "INSERT INTO arbitrage_events " +
+                    "(symbol, primary_exchange, secondary_exchange, primary_price, " +
+                    "secondary_price, diff_percent, timestamp) FORMAT RowBinary";
+
+    // Bytes per encoded row, for the first size of a table's arrays; they grow to the largest batch
+    private static final int PRICE_ROW_ESTIMATE = 40;
+    private static final int EVENT_ROW_ESTIMATE = 64;
+    private static final int INITIAL_ROWS = 1024;
+
+    private final WebClient clickHouseHttpClient;
+    private final String database;
+    private final boolean compress;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final TableMeters priceMeters;
+    private final TableMeters eventMeters;
+    private final TableEncoder priceEncoder;
+    private final TableEncoder eventEncoder;
+
+    private record TableMeters(String table, Timer insertTimer, Counter rowsCounter, DistributionSummary bytesSummary) {
+
+        static TableMeters register(String table, MeterRegistry registry) {
+            return new TableMeters(
+                    table,
+                    Timer.builder("clickhouse.insert")
+                            .description("Encoding, compression and round trip of a ClickHouse insert")
+                            .tag("table", table)
+                            .register(registry),
+                    Counter.builder("clickhouse.insert.rows")
+                            .description("Rows inserted into ClickHouse over HTTP")
+                            .tag("table", table)
+                            .register(registry),
+                    DistributionSummary.builder("clickhouse.insert.bytes")
+                            .description("Request body of a ClickHouse insert, after compression")
+                            .baseUnit("bytes")
+                            .tag("table", table)
+                            .register(registry));
+        }
+    }
+
+    /**
+     * Arrays of one table, reused by every batch. Batches of a table come from its single drain
+     * thread, so the lock is uncontended; it only keeps a stray caller from interleaving rows.
+     */
+    private static final class TableEncoder {
+        private final RowBinaryEncoder rows;
+        private final Lz4FrameEncoder frame;
+
+        private TableEncoder(int rowEstimate, ZoneId zone) {
+            this.rows = new RowBinaryEncoder(rowEstimate * INITIAL_ROWS, zone);
+            this.frame = new Lz4FrameEncoder(rowEstimate * INITIAL_ROWS / 2);
+        }
+
+        synchronized byte[] encode(Consumer<RowBinaryEncoder> rowWriter, boolean compress) {
+            rows.reset();
+            rowWriter.accept(rows);
+            if (!compress) {
+                return Arrays.copyOf(rows.array(), rows.size());
+            }
+            frame.encode(rows.array(), rows.size());
+            return frame.toByteArray();
+        }
+    }
+
+    public ClickHouseHttpWriter(
+            @Qualifier("clickHouseHttpClient") WebClient clickHouseHttpClient,
+            @Value("${clickhouse.http.database:arbitrage}") String database,
+            @Value("${clickhouse.http.compress:true}") boolean compress,
+            MeterRegistry registry) {
+        this.clickHouseHttpClient = clickHouseHttpClient;
+        this.database = database;
+        this.compress = compress;
+        this.priceMeters = TableMeters.register("token_prices", registry);
+        this.eventMeters = TableMeters.register("arbitrage_events", registry);
+        this.priceEncoder = new TableEncoder(PRICE_ROW_ESTIMATE, zone);
+        this.eventEncoder = new TableEncoder(EVENT_ROW_ESTIMATE, zone);
+    }
+
+    /**
+     * Inserts prices as published, encoded without a detour through {@link TokenPriceRecord}
+     */
+    public Mono<Void> insertPrices(List<TokenPrice> prices) {
+        return insert(priceMeters, priceEncoder, PRICE_INSERT, prices.size(),
+                encoder -> prices.forEach(encoder::writePrice));
+    }
+
+    public Mono<Void> insertPriceRecords(List<TokenPriceRecord> records) {
+        return insert(priceMeters, priceEncoder, PRICE_INSERT, records.size(),
+                encoder -> records.forEach(encoder::writePrice));
+    }
+
+    public Mono<Void> insertEvents(List<ArbitrageEventRecord> records) {
+        return insert(eventMeters, eventEncoder, EVENT_INSERT, records.size(),
+                encoder -> records.forEach(encoder::writeEvent));
+    }
+
+    private Mono<Void> insert(TableMeters meters, TableEncoder encoder, String query, int rows,
+                              Consumer<RowBinaryEncoder> rowWriter) {
+        if (rows == 0) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            byte[] body = encoder.encode(rowWriter, compress);
+            meters.bytesSummary().record(body.length);
+            return clickHouseHttpClient.post()
+                    .uri(uri -> uri.path("/")
+                            .queryParam("database", "{database}")
+                            .queryParam("query", "{query}")
+                            .build(database, query))
+                    .headers(headers -> {
+                        if (compress) {
+                            headers.set(HttpHeaders.CONTENT_ENCODING, "lz4");
+                        }
+                    })
+                    .bodyValue(body)
+                    .retrieve()
+                    .onStatus(HttpStatusCode::isError, response -> response.bodyToMono(String.class)
+                            .defaultIfEmpty(response.statusCode().toString())
+                            .map(message -> new IllegalStateException(
+                                    "ClickHouse insert into " + meters.table() + " failed: " + message.trim())))
+                    .toBodilessEntity()
+                    .doOnSuccess(ignored -> {
+                        meters.insertTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        meters.rowsCounter().increment(rows);
+                        log.debug("Inserted {} rows into {} ({} bytes)", rows, meters.table(), body.length);
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * The first {@code length} bytes of {@code data} as one LZ4 frame
+     */
+    public static byte[] lz4(byte[] data, int length) {
+        Lz4FrameEncoder frame = new Lz4FrameEncoder(0);
+        frame.encode(data, length);
+        return frame.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package trader.arbitrage.database;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.util.Arrays;
+
+/**
+ * Writes an LZ4 frame ({@code Content-Encoding: lz4} of the ClickHouse HTTP interface) into one
+ * array that is kept for the next call, instead of the block buffers {@code LZ4FrameOutputStream}
+ * allocates per stream. Independent 64 KiB blocks, no checksums; a block that does not compress
+ * is stored as is.
+ * <p>
+ * Not thread-safe; one encoder per table writer.
+ */
+final class Lz4FrameEncoder {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final int MAGIC = 0x184D2204;
+    // Version 01, independent blocks; 64 KiB maximum block size
+    private static final byte FLG = 0x60;
+    private static final byte BD = 0x40;
+    private static final byte HC = (byte) (XXHashFactory.fastestInstance().hash32()
+            .hash(new byte[]{FLG, BD}, 0, 2, 0) >> 8);
+    private static final int UNCOMPRESSED = 0x80000000;
+
+    private byte[] frame;
+    private int size;
+
+    Lz4FrameEncoder(int initialCapacity) {
+        this.frame = new byte[Math.max(64, initialCapacity)];
+    }
+
+    /**
+     * Replaces the frame with the first {@code length} bytes of {@code data}
+     *
+     * @return the length of the frame
+     */
+    int encode(byte[] data, int length) {
+        int blocks = Math.max(1, (length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        int maxLength = 7 + blocks * (4 + COMPRESSOR.maxCompressedLength(BLOCK_SIZE)) + 4;
+        if (frame.length < maxLength) {
+            frame = new byte[maxLength];
+        }
+        int position = writeInt(0, MAGIC);
+        frame[position++] = FLG;
+        frame[position++] = BD;
+        frame[position++] = HC;
+        for (int offset = 0; offset < length; offset += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, length - offset);
+            int compressed = COMPRESSOR.compress(data, offset, blockLength, frame, position + 4, frame.length - position - 4);
+            if (compressed < blockLength) {
+                position = writeInt(position, compressed) + compressed;
+            } else {
+                position = writeInt(position, blockLength | UNCOMPRESSED);
+                System.arraycopy(data, offset, frame, position, blockLength);
+                position += blockLength;
+            }
+        }
+        // End mark
+        size = writeInt(position, 0);
+        return size;
+    }
+
+    byte[] array() {
+        return frame;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * A copy of the frame that stays valid after the next {@link #encode}
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(frame, size);
+    }
+
+    private int writeInt(int position, int value) {
+        frame[position] = (byte) value;
+        frame[position + 1] = (byte) (value >>> 8);
+        frame[position + 2] = (byte) (value >>> 16);
+        frame[position + 3] = (byte) (value >>> 24);
+        return position + 4;
+    }
+}
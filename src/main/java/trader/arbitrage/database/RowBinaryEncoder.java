@@ -0,0 +1,189 @@
+package trader.arbitrage.database;
+
+import trader.arbitrage.model.FixedPoint;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.clickhouse.ArbitrageEventRecord;
+import trader.arbitrage.model.clickhouse.TokenPriceRecord;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Encodes rows of {@code token_prices} and {@code arbitrage_events} in ClickHouse {@code RowBinary}
+ * into one growing byte array. Strings are written as UTF-8 straight from their chars and numbers
+ * little-endian, so a row costs no allocation once the array has grown to the batch size; only
+ * the BigDecimal fields of the records are converted on the way.
+ * <p>
+ * Column order follows the {@code INSERT} column lists of {@link ClickHouseHttpWriter}.
+ * Not thread-safe; {@link #reset} it to reuse the array for the next batch.
+ */
+public final class RowBinaryEncoder {
+
+    // Decimal64(6) prices and Decimal64(2) percentages of V1_init.sql
+    static final int PRICE_SCALE = 6;
+    static final int PERCENT_SCALE = 2;
+
+    private final ZoneId zone;
+    private byte[] buffer;
+    private int size;
+    private int rows;
+
+    public RowBinaryEncoder(int initialCapacity, ZoneId zone) {
+        this.buffer = new byte[Math.max(64, initialCapacity)];
+        this.zone = zone;
+    }
+
+    /**
+     * {@code symbol, exchange, price, timestamp} of a price as published, without any allocation
+     */
+    public void writePrice(TokenPrice price) {
+        writeString(price.getSymbol());
+        writeString(price.getExchange() != null ? price.getExchange() : "UNKNOWN");
+        writeInt64(FixedPoint.rescale(price.getPriceMantissa(), price.getPriceScale(), PRICE_SCALE));
+        writeDateTime(price.getTimestamp().getEpochSecond());
+        rows++;
+    }
+
+    public void writePrice(TokenPriceRecord record) {
+        writeString(record.getSymbol());
+        writeString(record.getExchange() != null ? record.getExchange() : "UNKNOWN");
+        writeDecimal64(record.getPrice(), PRICE_SCALE);
+        writeDateTime(record.getTimestamp());
+        rows++;
+    }
+
+    public void writeEvent(ArbitrageEventRecord record) {
+        writeString(record.getSymbol());
+        writeString(record.getPrimaryExchange());
+        writeString(record.getSecondaryExchange());
+        writeDecimal64(record.getPrimaryPrice(), PRICE_SCALE);
+        writeDecimal64(record.getSecondaryPrice(), PRICE_SCALE);
+        writeDecimal64(record.getDiffPercent(), PERCENT_SCALE);
+        writeDateTime(record.getTimestamp());
+        rows++;
+    }
+
+    public byte[] array() {
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Empties the encoder, keeping its array for the next batch
+     */
+    public void reset() {
+        size = 0;
+        rows = 0;
+    }
+
+    /**
+     * Length-prefixed UTF-8; an unpaired surrogate is written as {@code '?'} like {@link String#getBytes}
+     */
+    void writeString(String value) {
+        if (value == null) {
+            value = "";
+        }
+        int length = utf8Length(value);
+        writeVarUInt(length);
+        ensureCapacity(length);
+        byte[] out = buffer;
+        int position = size;
+        for (int i = 0, chars = value.length(); i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out[position++] = (byte) c;
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | c >> 6);
+                out[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out[position++] = (byte) (0xF0 | codePoint >> 18);
+                out[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                out[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                out[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                out[position++] = '?';
+            } else {
+                out[position++] = (byte) (0xE0 | c >> 12);
+                out[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                out[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        size = position;
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, chars = value.length(); i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void writeVarUInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeDecimal64(BigDecimal value, int scale) {
+        writeInt64(value != null ? value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0);
+    }
+
+    private void writeDateTime(LocalDateTime timestamp) {
+        // The JDBC path sends local time and the server reads it in the same zone
+        writeDateTime(timestamp != null ? timestamp.toEpochSecond(zone.getRules().getOffset(timestamp)) : 0);
+    }
+
+    /**
+     * DateTime is UInt32 seconds since the epoch
+     */
+    private void writeDateTime(long epochSecond) {
+        ensureCapacity(4);
+        writeLittleEndian((int) epochSecond);
+    }
+
+    void writeInt64(long value) {
+        ensureCapacity(8);
+        writeLittleEndian((int) value);
+        writeLittleEndian((int) (value >>> 32));
+    }
+
+    private void writeLittleEndian(int value) {
+        buffer[size++] = (byte) value;
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 24);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (size + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+    }
+}
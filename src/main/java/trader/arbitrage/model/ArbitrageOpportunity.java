@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -14,9 +15,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ArbitrageOpportunity {
     private String symbol;
-    private BigDecimal mexcPrice;
-    private BigDecimal secondExchangePrice;
+    // Cheapest venue
+    private String buyExchangeName;
+    private BigDecimal buyPrice;
+    // Most expensive venue
+    private String sellExchangeName;
+    private BigDecimal sellPrice;
+    // (sell - buy) / buy in percent
     private BigDecimal priceDifferencePercent;
-    private String secondExchangeName;
+    // Spread in percent when the MEXC leg is filled from the book, by notional in quote currency; null if unknown
+    private Map<Long, BigDecimal> executableSpreadPercent;
     private LocalDateTime timestamp;
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package trader.arbitrage.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point price arithmetic on a {@code long} mantissa and a decimal scale:
+ * {@code value = mantissa * 10^-scale}. Used on the hot path instead of BigDecimal;
+ * all rounding is HALF_UP to match the previous BigDecimal results exactly.
+ */
+public final class FixedPoint {
+
+    /** Largest scale a price is normalised to; keeps 18-digit mantissas within a long */
+    public static final int MAX_SCALE = 18;
+
+    /** Orders of magnitude a price may grow from its first observation before the mantissa overflows */
+    private static final int HEADROOM_DIGITS = 6;
+
+    private static final MathContext MANTISSA_PRECISION = new MathContext(18, RoundingMode.HALF_UP);
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Converts a mantissa between scales, rounding HALF_UP when digits are dropped
+     *
+     * @throws ArithmeticException if the result does not fit into a long
+     */
+    public static long rescale(long mantissa, int fromScale, int toScale) {
+        int diff = toScale - fromScale;
+        if (diff == 0) {
+            return mantissa;
+        }
+        if (diff > 0) {
+            if (diff >= POWERS_OF_TEN.length) {
+                if (mantissa == 0) {
+                    return 0;
+                }
+                throw new ArithmeticException("Rescale overflow");
+            }
+            return Math.multiplyExact(mantissa, POWERS_OF_TEN[diff]);
+        }
+        if (-diff >= POWERS_OF_TEN.length) {
+            return 0;
+        }
+        return divideHalfUp(mantissa, POWERS_OF_TEN[-diff]);
+    }
+
+    /**
+     * Relative difference {@code (price - reference) / reference} in hundredths of a percent.
+     * Both mantissas must share the same scale. Matches the previous BigDecimal computation:
+     * ratio rounded to 6 decimals, times 100, rounded to 2 decimals.
+     */
+    public static long spreadBasisPoints(long price, long reference) {
+        if (reference == 0) {
+            return 0;
+        }
+        long diff = price - reference;
+        if (Math.abs(diff) <= Long.MAX_VALUE / 1_000_000) {
+            long ratioMicros = divideHalfUp(diff * 1_000_000, reference);
+            return divideHalfUp(ratioMicros, 100);
+        }
+        // Mantissas far beyond the headroom of their symbol scale: fall back to exact decimal math
+        return BigDecimal.valueOf(diff)
+                .divide(BigDecimal.valueOf(reference), 6, RoundingMode.HALF_UP)
+                .movePointRight(4)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    /**
+     * Integer division rounding HALF_UP (half away from zero), for a positive divisor
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Chooses the scale used for every price of a symbol, from its first observed price:
+     * as many fraction digits as possible while leaving {@value #HEADROOM_DIGITS} orders of
+     * magnitude of growth before an 18-digit mantissa overflows.
+     */
+    public static int symbolScale(long mantissa, int scale) {
+        int integerDigits = digits(Math.abs(mantissa)) - scale;
+        int symbolScale = 18 - HEADROOM_DIGITS - integerDigits;
+        return Math.max(0, Math.min(MAX_SCALE, symbolScale));
+    }
+
+    public static BigDecimal toBigDecimal(long mantissa, int scale) {
+        return BigDecimal.valueOf(mantissa, scale);
+    }
+
+    /**
+     * Rounds a BigDecimal so that its unscaled value fits into a long and its scale is not negative
+     */
+    public static BigDecimal normalize(BigDecimal value) {
+        BigDecimal result = value.precision() > 18 ? value.round(MANTISSA_PRECISION) : value;
+        if (result.scale() < 0) {
+            result = result.setScale(0, RoundingMode.UNNECESSARY);
+        } else if (result.scale() > MAX_SCALE) {
+            result = result.setScale(MAX_SCALE, RoundingMode.HALF_UP);
+        }
+        return result;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -8,13 +8,47 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.Instant;
 
+/**
+ * Latest quote of a symbol on one venue. The price is kept as fixed-point
+ * ({@code priceMantissa * 10^-priceScale}); {@link #getPrice()} builds a BigDecimal
+ * for persistence and notifications only.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class TokenPrice {
     private String symbol;
-    private BigDecimal price;
+    private long priceMantissa;
+    private int priceScale;
     private String exchange;
     private Instant timestamp;
-}
\ No newline at end of file
+
+    /**
+     * @return false if no valid (positive) price has been set
+     */
+    public boolean hasPrice() {
+        return priceMantissa > 0;
+    }
+
+    public BigDecimal getPrice() {
+        return hasPrice() ? FixedPoint.toBigDecimal(priceMantissa, priceScale) : null;
+    }
+
+    public static class TokenPriceBuilder {
+        /**
+         * Sets the price from a decimal value, rounded to at most 18 significant digits
+         */
+        public TokenPriceBuilder price(BigDecimal price) {
+            if (price == null) {
+                this.priceMantissa = 0;
+                this.priceScale = 0;
+                return this;
+            }
+            BigDecimal normalized = FixedPoint.normalize(price);
+            this.priceMantissa = normalized.unscaledValue().longValueExact();
+            this.priceScale = normalized.scale();
+            return this;
+        }
+    }
+}
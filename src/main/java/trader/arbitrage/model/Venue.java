@@ -0,0 +1,28 @@
+package trader.arbitrage.model;
+
+/**
+ * Price sources known to the application. The ordinal is the dense venue ID.
+ */
+public enum Venue {
+    MEXC("MEXC"),
+    COIN_MARKET_CAP("CoinMarketCap"),
+    DEX_SCREENER("DEXScreener"),
+    PANCAKE("Pancake");
+
+    private final String exchangeName;
+
+    Venue(String exchangeName) {
+        this.exchangeName = exchangeName;
+    }
+
+    /**
+     * @return the exchange name stored in {@link TokenPrice#getExchange()} and persisted records
+     */
+    public String exchangeName() {
+        return exchangeName;
+    }
+
+    public int id() {
+        return ordinal();
+    }
+}
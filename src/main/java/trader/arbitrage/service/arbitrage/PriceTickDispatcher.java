@@ -0,0 +1,125 @@
+package trader.arbitrage.service.arbitrage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fans price ticks out to the arbitrage detectors when running in tick-driven mode.
+ * Ticks are coalesced per symbol: while a drain pass is pending, further ticks for the
+ * same symbol are absorbed, so a burst of updates costs one evaluation with the newest prices.
+ * Pending symbols are tracked in a bitmap over symbol IDs, so ticking does not allocate.
+ */
+@Slf4j
+@Service
+public class PriceTickDispatcher {
+
+    public static final String MODE_TICK = "tick";
+    public static final String MODE_POLL = "poll";
+
+    private final SymbolRegistry symbolRegistry;
+    private final List<PriceTickListener> listeners = new CopyOnWriteArrayList<>();
+    // symbol ID -> nanoTime of the first tick not yet evaluated, 0 if none is pending
+    private final AtomicLongArray firstTickNanos;
+    // one bit per symbol ID with a pending tick
+    private final AtomicLongArray pendingWords;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Scheduler tickScheduler = Schedulers.newSingle("arbitrage-tick");
+    private final Timer tickLatencyTimer;
+    private final boolean tickMode;
+
+    public PriceTickDispatcher(
+            MeterRegistry registry,
+            SymbolRegistry symbolRegistry,
+            @Value("${arbitrage.detection-mode:" + MODE_TICK + "}") String detectionMode) {
+        this.symbolRegistry = symbolRegistry;
+        this.firstTickNanos = new AtomicLongArray(symbolRegistry.capacity());
+        this.pendingWords = new AtomicLongArray((symbolRegistry.capacity() + 63) >>> 6);
+        this.tickMode = MODE_TICK.equalsIgnoreCase(detectionMode.trim());
+        this.tickLatencyTimer = Timer.builder("arbitrage.tick.latency")
+                .description("Time from a price tick to its arbitrage evaluation")
+                .register(registry);
+        log.info("Arbitrage detection mode: {}", tickMode ? MODE_TICK : MODE_POLL);
+    }
+
+    public void register(PriceTickListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return true if detection is driven by price ticks, false if the fixed-rate poller is in charge
+     */
+    public boolean isTickMode() {
+        return tickMode;
+    }
+
+    /**
+     * Must be called after the new price has been stored, so the evaluation reads it
+     */
+    public void onTick(int symbolId) {
+        if (!tickMode) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (firstTickNanos.compareAndSet(symbolId, 0, now == 0 ? 1 : now)) {
+            markPending(symbolId);
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            tickScheduler.schedule(this::drain);
+        }
+    }
+
+    private void markPending(int symbolId) {
+        int word = symbolId >>> 6;
+        long bit = 1L << symbolId;
+        long current;
+        do {
+            current = pendingWords.get(word);
+        } while ((current & bit) == 0 && !pendingWords.compareAndSet(word, current, current | bit));
+    }
+
+    private void drain() {
+        // Reset first, so ticks arriving during this pass schedule a follow-up pass
+        drainScheduled.set(false);
+
+        int words = (symbolRegistry.size() + 63) >>> 6;
+        for (int word = 0; word < words; word++) {
+            long pending = pendingWords.getAndSet(word, 0);
+            while (pending != 0) {
+                int symbolId = (word << 6) + Long.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+                evaluate(symbolId, firstTickNanos.getAndSet(symbolId, 0));
+            }
+        }
+    }
+
+    private void evaluate(int symbolId, long tickNanos) {
+        for (PriceTickListener listener : listeners) {
+            try {
+                listener.onPriceTick(symbolId);
+            } catch (Exception e) {
+                log.error("Error evaluating tick for {}: {}", symbolRegistry.symbol(symbolId), e.getMessage(), e);
+            }
+        }
+        if (tickNanos != 0) {
+            tickLatencyTimer.record(System.nanoTime() - tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tickScheduler.dispose();
+    }
+}
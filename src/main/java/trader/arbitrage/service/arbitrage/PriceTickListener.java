@@ -0,0 +1,11 @@
+package trader.arbitrage.service.arbitrage;
+
+/**
+ * Receives a notification whenever a fresh price for a symbol has been stored by any venue
+ */
+public interface PriceTickListener {
+    /**
+     * @param symbolId ID of the symbol in the {@link trader.arbitrage.service.registry.SymbolRegistry}
+     */
+    void onPriceTick(int symbolId);
+}
@@ -0,0 +1,312 @@
+package trader.arbitrage.service.arbitrage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import trader.arbitrage.client.mexc.MexcOrderBook;
+import trader.arbitrage.client.mexc.MexcOrderBooks;
+import trader.arbitrage.client.pancake.PancakeImpactLadder;
+import trader.arbitrage.client.pancake.PancakeImpactLadders;
+import trader.arbitrage.model.ArbitrageOpportunity;
+import trader.arbitrage.model.FixedPoint;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.arbitrage.metricscounter.ArbitrageOpportunityProvider;
+import trader.arbitrage.service.clickhouse.ClickHouseService;
+import trader.arbitrage.service.priceservice.PriceBoard;
+import trader.arbitrage.service.priceservice.VenueQuote;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.telegram.ArbitrageAlertAggregator;
+import trader.arbitrage.telegram.ArbitrageAlertAggregator.Transition;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arbitrage detection across all venues of the price board. For each symbol one pass over its
+ * venue row finds the cheapest (buy) and the most expensive (sell) venue. The spread of that pair
+ * goes through the {@link ArbitrageAlertAggregator} hysteresis, which decides whether it is reported.
+ * A new venue only adds a column to the board, so any pair of venues is covered without a
+ * dedicated detector.
+ */
+@Slf4j
+@Service
+public class SpreadMatrixArbitrageService implements ArbitrageOpportunityProvider, PriceTickListener {
+
+    private static final Venue[] VENUES = Venue.values();
+
+    protected final ArbitrageAlertAggregator alertAggregator;
+    protected final PriceTickDispatcher tickDispatcher;
+    protected final SymbolRegistry symbolRegistry;
+    protected final PriceBoard priceBoard;
+    protected final MexcOrderBooks orderBooks;
+    protected final PancakeImpactLadders impactLadders;
+    protected final ClickHouseService clickHouseService;
+    protected final Counter arbitrageOpportunityCounter;
+
+    // Order sizes in quote currency for which the spread is recomputed against the MEXC book
+    @Value("${arbitrage.executable.notionals:1000,10000}")
+    protected long[] executableNotionals;
+
+    // Best pair per symbol while its spread is alerted
+    protected final Map<String, ArbitrageOpportunity> lastDetectedOpportunities = new ConcurrentHashMap<>();
+
+    // Reused on every check; detection runs on one thread at a time
+    // (the tick thread in tick mode, the scheduler in poll mode)
+    private final VenueQuote quote = new VenueQuote();
+
+    public SpreadMatrixArbitrageService(
+            ArbitrageAlertAggregator alertAggregator,
+            PriceTickDispatcher tickDispatcher,
+            SymbolRegistry symbolRegistry,
+            PriceBoard priceBoard,
+            MexcOrderBooks orderBooks,
+            PancakeImpactLadders impactLadders,
+            ClickHouseService clickHouseService,
+            Counter arbitrageOpportunityCounter) {
+        this.alertAggregator = alertAggregator;
+        this.tickDispatcher = tickDispatcher;
+        this.symbolRegistry = symbolRegistry;
+        this.priceBoard = priceBoard;
+        this.orderBooks = orderBooks;
+        this.impactLadders = impactLadders;
+        this.clickHouseService = clickHouseService;
+        this.arbitrageOpportunityCounter = arbitrageOpportunityCounter;
+    }
+
+    @PostConstruct
+    public void init() {
+        tickDispatcher.register(this);
+    }
+
+    /**
+     * Full scan over all symbols. Runs on a fixed rate only when the fallback poll mode is configured;
+     * in tick mode detection is driven by {@link #onPriceTick(int)}.
+     */
+    @Scheduled(fixedRateString = "${arbitrage.check-interval}")
+    @Observed(name = "ArbitrageMatrixCheck", contextualName = "check-arbitrage-opportunities")
+    public void checkForArbitrageOpportunities() {
+        if (tickDispatcher.isTickMode()) {
+            return;
+        }
+        log.info("Checking for arbitrage opportunities across {} venues...", VENUES.length);
+
+        int quotedSymbols = 0;
+        for (int symbolId = 0, symbols = priceBoard.symbolCount(); symbolId < symbols; symbolId++) {
+            if (checkForArbitrageOpportunity(symbolId)) {
+                quotedSymbols++;
+            }
+        }
+        if (quotedSymbols == 0) {
+            log.debug("No token is quoted on more than one venue");
+        }
+    }
+
+    /**
+     * Re-evaluates a single symbol after one of the venues published a new price for it
+     */
+    @Override
+    public void onPriceTick(int symbolId) {
+        checkForArbitrageOpportunity(symbolId);
+    }
+
+    /**
+     * Scans the venue row of a symbol for the lowest and highest price and processes the pair
+     * if the alert hysteresis asks for it
+     *
+     * @return true if at least two venues had a price for the token
+     */
+    protected boolean checkForArbitrageOpportunity(int symbolId) {
+        if (symbolId < 0) {
+            return false;
+        }
+        int scale = -1;
+        int quoted = 0;
+        Venue buyVenue = null;
+        Venue sellVenue = null;
+        long buyPrice = 0;
+        long sellPrice = 0;
+        long now = System.currentTimeMillis();
+        for (Venue venue : VENUES) {
+            // A venue that stopped confirming its prices (e.g. Pancake reserves no longer followed) is left out
+            if (priceBoard.isStale(venue, now) || !priceBoard.read(symbolId, venue, quote) || !quote.hasPrice()) {
+                continue;
+            }
+            long price;
+            try {
+                if (scale < 0) {
+                    scale = symbolRegistry.scale(symbolId, quote.getPriceMantissa(), quote.getPriceScale());
+                }
+                price = FixedPoint.rescale(quote.getPriceMantissa(), quote.getPriceScale(), scale);
+            } catch (ArithmeticException e) {
+                log.warn("{} price of {} out of fixed-point range: {}",
+                        venue.exchangeName(), symbolRegistry.symbol(symbolId), e.getMessage());
+                continue;
+            }
+            quoted++;
+            if (buyVenue == null || price < buyPrice) {
+                buyVenue = venue;
+                buyPrice = price;
+            }
+            if (sellVenue == null || price > sellPrice) {
+                sellVenue = venue;
+                sellPrice = price;
+            }
+        }
+        // Skip unless at least two venues quote the token
+        if (quoted < 2) {
+            return false;
+        }
+
+        // Spread of the best pair in hundredths of a percent of the buy price
+        long spreadBasisPoints = calculatePriceDifferenceBasisPoints(sellPrice, buyPrice);
+        if (log.isDebugEnabled()) {
+            log.debug("Best spread of {}: buy {} / sell {} = {}",
+                    symbolRegistry.symbol(symbolId),
+                    buyVenue.exchangeName(),
+                    sellVenue.exchangeName(),
+                    BigDecimal.valueOf(spreadBasisPoints, 2));
+        }
+        Transition transition = alertAggregator.update(symbolId, buyVenue, sellVenue, spreadBasisPoints);
+        if (transition == Transition.EXIT) {
+            lastDetectedOpportunities.remove(symbolRegistry.symbol(symbolId));
+        } else if (transition != Transition.NONE) {
+            if (arbitrageOpportunityCounter != null) {
+                arbitrageOpportunityCounter.increment();
+            }
+            String token = symbolRegistry.symbol(symbolId);
+
+            ArbitrageOpportunity opportunity = ArbitrageOpportunity.builder()
+                    .symbol(token)
+                    .buyExchangeName(buyVenue.exchangeName())
+                    .buyPrice(FixedPoint.toBigDecimal(buyPrice, scale))
+                    .sellExchangeName(sellVenue.exchangeName())
+                    .sellPrice(FixedPoint.toBigDecimal(sellPrice, scale))
+                    .priceDifferencePercent(BigDecimal.valueOf(spreadBasisPoints, 2))
+                    .executableSpreadPercent(calculateExecutableSpreads(symbolId, scale, buyVenue, buyPrice, sellVenue, sellPrice))
+                    .timestamp(LocalDateTime.now())
+                    .build();
+
+            logArbitrageOpportunity(opportunity);
+            processArbitrageOpportunity(opportunity);
+            lastDetectedOpportunities.put(token, opportunity);
+        }
+        return true;
+    }
+
+    /**
+     * Recomputes the spread with the MEXC leg filled from its L2 book: asks when MEXC is the buy
+     * venue, bids when it is the sell venue. A PancakeSwap leg is filled from its price-impact
+     * ladder; any other venue is taken at its quote.
+     *
+     * @return spread in percent per notional; notionals the book or the pools are too thin for are
+     * left out, null if MEXC is not part of the pair or there is no synced book for the symbol
+     */
+    protected Map<Long, BigDecimal> calculateExecutableSpreads(
+            int symbolId, int scale, Venue buyVenue, long buyPrice, Venue sellVenue, long sellPrice) {
+        if (buyVenue != Venue.MEXC && sellVenue != Venue.MEXC) {
+            return null;
+        }
+        MexcOrderBook book = orderBooks.get(symbolId);
+        if (book == null || !book.isSynced() || executableNotionals.length == 0) {
+            return null;
+        }
+        boolean buyOnMexc = buyVenue == Venue.MEXC;
+        PancakeImpactLadder ladder = (buyOnMexc ? sellVenue : buyVenue) == Venue.PANCAKE
+                ? impactLadders.get(symbolId)
+                : null;
+        Map<Long, BigDecimal> spreads = new LinkedHashMap<>();
+        for (long notional : executableNotionals) {
+            long vwap = book.vwap(buyOnMexc, notional);
+            if (vwap <= 0) {
+                continue;
+            }
+            // The other leg trades the opposite side
+            long otherPrice = buyOnMexc ? sellPrice : buyPrice;
+            if (ladder != null) {
+                otherPrice = ladder.fillPrice(!buyOnMexc, notional, scale);
+                if (otherPrice <= 0) {
+                    continue;
+                }
+            }
+            // Book and ladder prices share the symbol's registry scale with the quotes
+            spreads.put(notional, BigDecimal.valueOf(buyOnMexc
+                    ? calculatePriceDifferenceBasisPoints(otherPrice, vwap)
+                    : calculatePriceDifferenceBasisPoints(vwap, otherPrice), 2));
+        }
+        return spreads;
+    }
+
+    /**
+     * Process the detected arbitrage opportunity (e.g., send notifications). Only entries and
+     * material changes get here, so an open spread is stored once per move, not once per check;
+     * the write is buffered and never waits for ClickHouse.
+     */
+    protected void processArbitrageOpportunity(ArbitrageOpportunity opportunity) {
+        alertAggregator.submit(opportunity);
+        clickHouseService.bufferEvent(opportunity);
+    }
+
+    /**
+     * Calculate percentage difference between two prices
+     */
+    protected BigDecimal calculatePriceDifferencePercent(BigDecimal price1, BigDecimal price2) {
+        if (price2.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO; // Avoid division by zero
+        }
+
+        return price1.subtract(price2)
+                .divide(price2, 6, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal("100"))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Calculate the difference of two fixed-point prices of the same scale in hundredths of a percent.
+     * Allocation-free equivalent of {@link #calculatePriceDifferencePercent(BigDecimal, BigDecimal)}.
+     */
+    protected long calculatePriceDifferenceBasisPoints(long price1, long price2) {
+        return FixedPoint.spreadBasisPoints(price1, price2);
+    }
+
+    /**
+     * Log arbitrage opportunity details
+     */
+    protected void logArbitrageOpportunity(ArbitrageOpportunity opportunity) {
+        log.info("🚨 ARBITRAGE OPPORTUNITY DETECTED 🚨");
+        log.info("Token: {}", opportunity.getSymbol());
+        log.info("Buy on {}: {}", opportunity.getBuyExchangeName(), opportunity.getBuyPrice());
+        log.info("Sell on {}: {}", opportunity.getSellExchangeName(), opportunity.getSellPrice());
+        log.info("Price Difference: {}%", opportunity.getPriceDifferencePercent());
+        if (opportunity.getExecutableSpreadPercent() != null) {
+            opportunity.getExecutableSpreadPercent().forEach((notional, spread) ->
+                    log.info("Executable Difference @ {}: {}%", notional, spread));
+        }
+        log.info("Timestamp: {}", opportunity.getTimestamp());
+        log.info("--------------------------------------");
+    }
+
+    /**
+     * Get all detected arbitrage opportunities
+     */
+    @Override
+    public List<ArbitrageOpportunity> getAllArbitrageOpportunities() {
+        return new ArrayList<>(lastDetectedOpportunities.values());
+    }
+
+    /**
+     * Get most recent arbitrage opportunity for a specific token
+     */
+    public ArbitrageOpportunity getArbitrageOpportunity(String token) {
+        return lastDetectedOpportunities.get(token);
+    }
+}
@@ -0,0 +1,278 @@
+package trader.arbitrage.service.clickhouse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Buffers rows in a bounded {@link MpscRingBuffer} and writes them to ClickHouse from one drain
+ * thread. A batch is flushed when it is full or when the flush interval has passed since the last
+ * one, and only one insert is in flight at a time.
+ * <p>
+ * The batch size adapts to the inserts: it halves when an insert takes longer than the target
+ * latency, and doubles only while inserts succeed within it and the buffer keeps a backlog or full
+ * batches come back in under half the target. A failed or timed-out insert is retried with the
+ * same rows up to the configured attempts, with a growing pause between them, before its rows are
+ * counted as lost; a retry after a timeout may write rows twice, which is preferred to a hole in
+ * the series. When the buffer is full, {@link OverflowPolicy#DROP} rejects the row at once and
+ * {@link OverflowPolicy#BLOCK} lets the producer wait up to the offer timeout first; either way a
+ * rejected row is counted. {@link #close} drains everything that is left before it returns; rows
+ * submitted after it are rejected and counted as well.
+ */
+@Slf4j
+final class ClickHouseBatchWriter<T> {
+
+    enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    record Settings(
+            int capacity,
+            int initialBatchSize,
+            int minBatchSize,
+            int maxBatchSize,
+            Duration flushInterval,
+            Duration targetLatency,
+            Duration insertTimeout,
+            int insertAttempts,
+            Duration retryBackoff,
+            OverflowPolicy overflowPolicy,
+            Duration offerTimeout) {
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final String name;
+    private final Function<List<T>, Mono<Void>> sink;
+    private final Settings settings;
+    private final MpscRingBuffer<T> buffer;
+    private final Thread drainThread;
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean();
+    private volatile boolean running = true;
+    // Producers between the running check and the end of their offer; the shutdown drain waits for them
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    // Written by the drain thread, read by producers to decide on a wakeup
+    private volatile int batchSize;
+
+    private final Timer flushTimer;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+    private final Counter closedCounter;
+    private final Counter writtenCounter;
+    private final Counter retryCounter;
+
+    ClickHouseBatchWriter(String name, Function<List<T>, Mono<Void>> sink, Settings settings, MeterRegistry registry) {
+        this.name = name;
+        this.sink = sink;
+        this.settings = settings;
+        this.buffer = new MpscRingBuffer<>(settings.capacity());
+        this.batchSize = clampBatchSize(settings.initialBatchSize());
+
+        Gauge.builder("clickhouse.buffer.occupancy", buffer, MpscRingBuffer::size)
+                .description("Rows waiting in a ClickHouse write buffer")
+                .tag("buffer", name)
+                .register(registry);
+        Gauge.builder("clickhouse.buffer.capacity", buffer, MpscRingBuffer::capacity)
+                .description("Rows a ClickHouse write buffer can hold")
+                .tag("buffer", name)
+                .register(registry);
+        Gauge.builder("clickhouse.buffer.batch-size", this, writer -> writer.batchSize)
+                .description("Current adaptive batch size of a ClickHouse write buffer")
+                .tag("buffer", name)
+                .register(registry);
+        this.flushTimer = Timer.builder("clickhouse.flush")
+                .description("Latency of one batch insert from a ClickHouse write buffer")
+                .tag("buffer", name)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.overflowCounter = Counter.builder("clickhouse.buffer.dropped")
+                .description("Rows lost before reaching ClickHouse")
+                .tag("buffer", name)
+                .tag("reason", "overflow")
+                .register(registry);
+        this.failedCounter = Counter.builder("clickhouse.buffer.dropped")
+                .description("Rows lost before reaching ClickHouse")
+                .tag("buffer", name)
+                .tag("reason", "insert-failed")
+                .register(registry);
+        this.closedCounter = Counter.builder("clickhouse.buffer.dropped")
+                .description("Rows lost before reaching ClickHouse")
+                .tag("buffer", name)
+                .tag("reason", "closed")
+                .register(registry);
+        this.writtenCounter = Counter.builder("clickhouse.buffer.written")
+                .description("Rows written to ClickHouse from a write buffer")
+                .tag("buffer", name)
+                .register(registry);
+        this.retryCounter = Counter.builder("clickhouse.insert.retries")
+                .description("Batch inserts from a ClickHouse write buffer attempted again after a failure")
+                .tag("buffer", name)
+                .register(registry);
+
+        this.drainThread = Thread.ofPlatform().name("clickhouse-" + name + "-writer").daemon().unstarted(this::drainLoop);
+    }
+
+    void start() {
+        drainThread.start();
+    }
+
+    /**
+     * Buffers a row; never blocks with {@link OverflowPolicy#DROP}
+     *
+     * @return false if the row was dropped because the buffer stayed full or the writer is closed
+     */
+    boolean submit(T item) {
+        activeProducers.incrementAndGet();
+        try {
+            if (!running) {
+                closedCounter.increment();
+                return false;
+            }
+            boolean accepted = buffer.offer(item);
+            if (!accepted && settings.overflowPolicy() == OverflowPolicy.BLOCK) {
+                long deadline = System.nanoTime() + settings.offerTimeout().toNanos();
+                wakeUp();
+                while (!(accepted = buffer.offer(item)) && running && System.nanoTime() - deadline < 0) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+            if (!accepted) {
+                overflowCounter.increment();
+                return false;
+            }
+            if (buffer.size() >= batchSize) {
+                wakeUp();
+            }
+            return true;
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    private void wakeUp() {
+        if (!wakeupRequested.getAndSet(true)) {
+            LockSupport.unpark(drainThread);
+        }
+    }
+
+    /**
+     * Stops accepting wakeups, writes out every buffered row and waits for the drain thread
+     */
+    void close(Duration timeout) {
+        running = false;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainThread.isAlive()) {
+            log.warn("ClickHouse {} writer still draining {} rows after {}", name, buffer.size(), timeout);
+        }
+    }
+
+    private void drainLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        while (running) {
+            long deadline = lastFlush + settings.flushInterval().toNanos();
+            wakeupRequested.set(false);
+            if (buffer.size() < batchSize && System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(this, deadline - System.nanoTime());
+                continue;
+            }
+            flush(batch);
+            lastFlush = System.nanoTime();
+        }
+        // Shutdown: write out whatever the producers managed to publish. A producer that passed the
+        // running check before close may still be offering, so wait for it; later ones are rejected
+        while (buffer.size() > 0 || activeProducers.get() > 0) {
+            if (flush(batch) == 0) {
+                // Claimed but not yet published, or a producer still between its check and offer
+                Thread.onSpinWait();
+            }
+        }
+        log.info("ClickHouse {} writer drained", name);
+    }
+
+    /**
+     * Writes one batch, retrying it on failure, and adapts the batch size to the insert latency
+     *
+     * @return rows taken from the buffer
+     */
+    private int flush(List<T> batch) {
+        int size = batchSize;
+        int drained = buffer.drainTo(batch, size);
+        if (drained == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        boolean written;
+        try {
+            written = insert(batch);
+        } finally {
+            batch.clear();
+        }
+        long latency = System.nanoTime() - start;
+        flushTimer.record(latency, TimeUnit.NANOSECONDS);
+        adapt(size, drained, latency, written);
+        return drained;
+    }
+
+    /**
+     * @return false if every attempt failed and the rows were counted as lost
+     */
+    private boolean insert(List<T> batch) {
+        int attempts = Math.max(1, settings.insertAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sink.apply(batch).block(settings.insertTimeout());
+                writtenCounter.increment(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    failedCounter.increment(batch.size());
+                    log.error("ClickHouse {} insert of {} rows failed after {} attempts: {}",
+                            name, batch.size(), attempt, e.getMessage(), e);
+                    return false;
+                }
+                retryCounter.increment();
+                log.warn("ClickHouse {} insert of {} rows failed (attempt {} of {}), retrying: {}",
+                        name, batch.size(), attempt, attempts, e.getMessage());
+                LockSupport.parkNanos(settings.retryBackoff().toNanos() * attempt);
+            }
+        }
+    }
+
+    private void adapt(int size, int drained, long latencyNanos, boolean written) {
+        long target = settings.targetLatency().toNanos();
+        if (latencyNanos > target) {
+            batchSize = clampBatchSize(size / 2);
+        } else if (written && (buffer.size() >= size || drained == size && latencyNanos < target / 2)) {
+            // A backlog alone never grows the batch past what the server takes within the target
+            batchSize = clampBatchSize(size * 2);
+        }
+        if (batchSize != size) {
+            log.debug("ClickHouse {} batch size {} -> {} (insert took {} ms)",
+                    name, size, batchSize, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+    }
+
+    private int clampBatchSize(int size) {
+        int max = Math.min(settings.maxBatchSize(), buffer.capacity());
+        return Math.max(Math.max(1, settings.minBatchSize()), Math.min(max, size));
+    }
+}
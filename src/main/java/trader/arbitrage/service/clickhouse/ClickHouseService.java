@@ -1,17 +1,16 @@
 package trader.arbitrage.service.clickhouse;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import trader.arbitrage.database.ClickHouseHttpWriter;
 import trader.arbitrage.database.ClickHouseRepository;
 import trader.arbitrage.model.ArbitrageOpportunity;
 import trader.arbitrage.model.TokenPrice;
@@ -22,12 +21,8 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 
 @Service
@@ -35,45 +30,144 @@ import java.util.concurrent.Executor;
 @RequiredArgsConstructor
 public class ClickHouseService {
     private final ClickHouseRepository repository;
+    private final ClickHouseHttpWriter httpWriter;
     private final Executor jdbcExecutor;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${clickhouse.batch-size:1000}")
+    // rowbinary: RowBinary + LZ4 over HTTP; jdbc: INSERT ... VALUES batches
+    @Value("${clickhouse.insert-format:rowbinary}")
+    private String insertFormat;
+
+    @Value("${clickhouse.prices.capacity:65536}")
+    private int priceCapacity;
+    @Value("${clickhouse.prices.batch-size:1000}")
     private int priceBatchSize;
-    @Value("${clickhouse.batch-size:10}")
+    @Value("${clickhouse.prices.min-batch-size:100}")
+    private int priceMinBatchSize;
+    @Value("${clickhouse.prices.max-batch-size:50000}")
+    private int priceMaxBatchSize;
+    @Value("${clickhouse.prices.flush-interval:1000}")
+    private long priceFlushIntervalMillis;
+    // Inserts slower than this shrink the batch
+    @Value("${clickhouse.prices.target-latency:500}")
+    private long priceTargetLatencyMillis;
+    @Value("${clickhouse.prices.overflow:DROP}")
+    private ClickHouseBatchWriter.OverflowPolicy priceOverflow;
+    @Value("${clickhouse.prices.offer-timeout:50}")
+    private long priceOfferTimeoutMillis;
+    // Events are rare and small: their buffer is sized separately from the prices
+    @Value("${clickhouse.events.capacity:4096}")
+    private int eventCapacity;
+    @Value("${clickhouse.events.batch-size:100}")
     private int eventBatchSize;
+    @Value("${clickhouse.events.min-batch-size:10}")
+    private int eventMinBatchSize;
+    @Value("${clickhouse.events.max-batch-size:1000}")
+    private int eventMaxBatchSize;
+    @Value("${clickhouse.events.flush-interval:5000}")
+    private long eventFlushIntervalMillis;
+    @Value("${clickhouse.events.target-latency:500}")
+    private long eventTargetLatencyMillis;
+    @Value("${clickhouse.insert-timeout:30000}")
+    private long insertTimeoutMillis;
+    @Value("${clickhouse.insert-attempts:3}")
+    private int insertAttempts;
+    @Value("${clickhouse.retry-backoff:500}")
+    private long retryBackoffMillis;
+    @Value("${clickhouse.shutdown-timeout:10000}")
+    private long shutdownTimeoutMillis;
 
-    private final Queue<TokenPriceRecord> priceBuffer = new ConcurrentLinkedQueue<>();
-    private final Scheduler bufferScheduler = Schedulers.single();
-    private final List<ArbitrageEventRecord> eventBuffer = Collections.synchronizedList(new ArrayList<>());
+    private ClickHouseBatchWriter<TokenPrice> priceWriter;
+    private ClickHouseBatchWriter<ArbitrageEventRecord> eventWriter;
 
     @PostConstruct
     public void initBuffer() {
-        Flux.interval(Duration.ofSeconds(1), bufferScheduler)
-                .subscribe(v -> flushPricesAsync());
+        priceWriter = new ClickHouseBatchWriter<>(
+                "prices",
+                this::savePrices,
+                new ClickHouseBatchWriter.Settings(
+                        priceCapacity,
+                        priceBatchSize,
+                        priceMinBatchSize,
+                        priceMaxBatchSize,
+                        Duration.ofMillis(priceFlushIntervalMillis),
+                        Duration.ofMillis(priceTargetLatencyMillis),
+                        Duration.ofMillis(insertTimeoutMillis),
+                        insertAttempts,
+                        Duration.ofMillis(retryBackoffMillis),
+                        priceOverflow,
+                        Duration.ofMillis(priceOfferTimeoutMillis)),
+                meterRegistry);
+        priceWriter.start();
+
+        // Detection must never wait for ClickHouse, so a full event buffer always drops
+        eventWriter = new ClickHouseBatchWriter<>(
+                "events",
+                this::saveEvents,
+                new ClickHouseBatchWriter.Settings(
+                        eventCapacity,
+                        eventBatchSize,
+                        eventMinBatchSize,
+                        eventMaxBatchSize,
+                        Duration.ofMillis(eventFlushIntervalMillis),
+                        Duration.ofMillis(eventTargetLatencyMillis),
+                        Duration.ofMillis(insertTimeoutMillis),
+                        insertAttempts,
+                        Duration.ofMillis(retryBackoffMillis),
+                        ClickHouseBatchWriter.OverflowPolicy.DROP,
+                        Duration.ZERO),
+                meterRegistry);
+        eventWriter.start();
     }
 
-    public Mono<Void> bufferPriceReactive(TokenPrice price) {
-        return Mono.fromRunnable(() -> {
-            priceBuffer.add(convertToPriceRecord(price));
-            if (priceBuffer.size() >= priceBatchSize) {
-                flushPricesAsync();
-            }
-        }).subscribeOn(Schedulers.boundedElastic()).then();
+    /**
+     * Queues a price for the next batch insert; never blocks with the default {@code DROP} policy
+     */
+    public void bufferPrice(TokenPrice price) {
+        if (price == null || !price.hasPrice() || price.getTimestamp() == null) {
+            return;
+        }
+        priceWriter.submit(price);
     }
 
-    private Mono<Void> flushPricesAsync() {
-        return Mono.fromCallable(() -> {
-                    List<TokenPriceRecord> toSave = new ArrayList<>(priceBuffer);
-                    priceBuffer.clear();
-                    repository.savePricesBatch(toSave);
-                    return toSave;
-                })
-                .subscribeOn(Schedulers.fromExecutor(jdbcExecutor))
-                .doOnNext(saved -> log.info("Saved {} prices", saved.size()))
-                .then();
+    /**
+     * Called on the drain thread of the price writer, one batch at a time
+     */
+    private Mono<Void> savePrices(List<TokenPrice> prices) {
+        if ("rowbinary".equalsIgnoreCase(insertFormat)) {
+            return httpWriter.insertPrices(prices);
+        }
+        return Mono.fromRunnable(() -> repository.savePricesBatch(prices.stream()
+                .map(this::convertToPriceRecord)
+                .toList()));
     }
 
+    /**
+     * Queues a detected opportunity for the next batch insert into {@code arbitrage_events}.
+     * Never blocks; called only when the alert hysteresis opens or materially changes an
+     * opportunity, so an open spread is stored once per move rather than once per tick.
+     */
+    public void bufferEvent(ArbitrageOpportunity opportunity) {
+        eventWriter.submit(new ArbitrageEventRecord(
+                opportunity.getSymbol(),
+                opportunity.getBuyExchangeName(),
+                opportunity.getSellExchangeName(),
+                opportunity.getBuyPrice(),
+                opportunity.getSellPrice(),
+                opportunity.getPriceDifferencePercent(),
+                opportunity.getTimestamp()
+        ));
+    }
 
+    /**
+     * Called on the drain thread of the event writer, one batch at a time
+     */
+    private Mono<Void> saveEvents(List<ArbitrageEventRecord> events) {
+        if ("rowbinary".equalsIgnoreCase(insertFormat)) {
+            return httpWriter.insertEvents(events);
+        }
+        return Mono.fromRunnable(() -> repository.saveEventsBatch(events));
+    }
 
     public Flux<TokenPriceRecord> getPricesReactive(String symbol, LocalDateTime from, LocalDateTime to) {
         return Mono.fromCallable(() -> repository.findPrices(symbol, from, to))
@@ -101,38 +195,11 @@ public class ClickHouseService {
                 price.getTimestamp().atZone(ZoneId.systemDefault()).toLocalDateTime()
         );
     }
-//    public void bufferEvent(ArbitrageOpportunity opp) {
-//        log.info("Buffered event {}, size - {}", opp.getSymbol(), eventBuffer.size());
-//        eventBuffer.add(new ArbitrageEventRecord(
-//                opp.getSymbol(),
-//                "MEXC",
-//                opp.getSecondExchangeName(),
-//                opp.getMexcPrice(),
-//                opp.getSecondExchangePrice(),
-//                opp.getPriceDifferencePercent(),
-//                opp.getTimestamp()
-//        ));
-//        if (eventBuffer.size() >= eventBatchSize) {
-//            flushEvents();
-//        }
-//    }
-//    public synchronized void flushEvents() {
-//        if (eventBuffer.isEmpty()) return;
-//        List<ArbitrageEventRecord> toSave = new ArrayList<>(eventBuffer);
-//        eventBuffer.clear();
-//        repository.saveEventsBatch(toSave);
-//        log.info("Flushed {} arbitrage events to ClickHouse", toSave.size());
-//    }
-    @EventListener(ApplicationReadyEvent.class)
-    public void onAppReady() {
-        // на случай, если были данные до старта
-        flushPricesAsync();
-//        flushEvents();
-    }
 
     @PreDestroy
     public void onDestroy() {
-        flushPricesAsync();
-//        flushEvents();
+        // Дописываем всё, что осталось в буфере
+        priceWriter.close(Duration.ofMillis(shutdownTimeoutMillis));
+        eventWriter.close(Duration.ofMillis(shutdownTimeoutMillis));
     }
 }
@@ -0,0 +1,99 @@
+package trader.arbitrage.service.clickhouse;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer. Producers claim a slot by CAS on
+ * the tail and publish it through the slot's sequence; the single consumer takes slots in order
+ * without any CAS. A full buffer rejects the offer instead of growing.
+ * <p>
+ * {@link #poll()} and {@link #drainTo} must only be called from the consumer thread.
+ */
+final class MpscRingBuffer<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] items;
+    // Sequence of each slot: equal to the position when free for it, position + 1 once published
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer only; atomic so producers and gauges can read the occupancy
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1) << 1);
+        this.mask = capacity - 1;
+        this.items = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    boolean offer(T item) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long available = sequences.get(slot) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items[slot] = item;
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+            // Another producer claimed the slot first; retry on the new tail
+        }
+    }
+
+    /**
+     * @return the oldest published item, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long position = head.get();
+        int slot = (int) position & mask;
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        T item = (T) items[slot];
+        items[slot] = null;
+        sequences.lazySet(slot, position + capacity);
+        head.lazySet(position + 1);
+        return item;
+    }
+
+    /**
+     * Moves up to {@code max} items into {@code target} in order
+     *
+     * @return the number of items moved
+     */
+    int drainTo(List<T> target, int max) {
+        int drained = 0;
+        T item;
+        while (drained < max && (item = poll()) != null) {
+            target.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Claimed slots, including those a producer has not published yet; O(1)
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+}
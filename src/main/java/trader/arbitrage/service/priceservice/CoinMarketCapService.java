@@ -8,11 +8,15 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import trader.arbitrage.client.CoinMarketCapClient;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.arbitrage.PriceTickDispatcher;
 import trader.arbitrage.service.clickhouse.ClickHouseService;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceStreams;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -21,7 +25,10 @@ public class CoinMarketCapService {
 
     private final CoinMarketCapClient coinMarketCapPriceService;
     private final ClickHouseService clickHouseService;
-    private final Map<String, TokenPrice> lastPrices = new ConcurrentHashMap<>();
+    private final PriceTickDispatcher tickDispatcher;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBoard priceBoard;
+    private final PriceStreams priceStreams;
     private final List<String> tokens;
 
     @EventListener(ApplicationReadyEvent.class)
@@ -37,36 +44,50 @@ public class CoinMarketCapService {
         }
     }
 
-    public Flux<TokenPrice> subscribeToTokenPrice(String token) {
+    public Flux<TokenPrice> subscribeToTokenPrice(String token, String consumer, DeliveryPolicy policy) {
         log.info("Subscribing to token price for: {}", token);
-        return coinMarketCapPriceService.getPriceStream(token);
+        return coinMarketCapPriceService.getPriceStream(token, consumer, policy);
     }
 
     private void subscribeAndLog(String token) {
-        subscribeToTokenPrice(token)
+        int symbolId = symbolRegistry.register(token);
+        // Detection only needs the newest quote
+        subscribeToTokenPrice(token, "board", DeliveryPolicy.CONFLATE)
                 .subscribe(
                         price -> {
-                            lastPrices.put(token, price);
-                            logLastPrice(token);
+                            priceBoard.publish(symbolId, Venue.COIN_MARKET_CAP, price);
+                            tickDispatcher.onTick(symbolId);
                         },
                         error -> log.error("Error in price subscription for {}: {}", token, error.getMessage())
                 );
+        // Persistence sees every price, off the feed thread and within the configured bound
+        subscribeToTokenPrice(token, "persistence", priceStreams.getPersistencePolicy())
+                .publishOn(priceStreams.getConsumerScheduler(), 1)
+                .subscribe(
+                        this::logPrice,
+                        error -> log.error("Error in price subscription for {}: {}", token, error.getMessage())
+                );
     }
 
     public void logLastPrice(String token) {
-        TokenPrice price = lastPrices.get(token);
+        TokenPrice price = priceBoard.get(token, Venue.COIN_MARKET_CAP);
         if (price != null) {
-            log.info("Latest CoinMarketCap price for {}: {} at {}",
-                    price.getSymbol(),
-                    price.getPrice(),
-                    price.getTimestamp());
-            clickHouseService.bufferPriceReactive(price);
+            logPrice(price);
         } else {
             log.info("No CoinMarketCap price data received yet for {}", token);
         }
     }
 
+    private void logPrice(TokenPrice price) {
+        log.info("Latest CoinMarketCap price for {}: {} at {}",
+                price.getSymbol(),
+                price.getPrice(),
+                price.getTimestamp());
+        clickHouseService.bufferPrice(price);
+    }
+
     public void logAllLastPrices() {
+        Map<String, TokenPrice> lastPrices = priceBoard.snapshot(Venue.COIN_MARKET_CAP);
         if (lastPrices.isEmpty()) {
             log.info("No CoinMarketCap price data received yet for any token");
             return;
@@ -87,7 +108,11 @@ public class CoinMarketCapService {
      * @return The latest TokenPrice object or null if not available
      */
     public TokenPrice getLatestPrice(String token) {
-        return lastPrices.get(token);
+        return priceBoard.get(token, Venue.COIN_MARKET_CAP);
+    }
+
+    public TokenPrice getLatestPrice(int symbolId) {
+        return priceBoard.get(symbolId, Venue.COIN_MARKET_CAP);
     }
 
     /**
@@ -96,6 +121,6 @@ public class CoinMarketCapService {
      * @return Map of token symbols to their latest prices
      */
     public Map<String, TokenPrice> getAllLatestPrices() {
-        return new ConcurrentHashMap<>(lastPrices);
+        return priceBoard.snapshot(Venue.COIN_MARKET_CAP);
     }
 }
\ No newline at end of file
@@ -8,11 +8,15 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import trader.arbitrage.client.DexScreenerClient;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.arbitrage.PriceTickDispatcher;
 import trader.arbitrage.service.clickhouse.ClickHouseService;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceStreams;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -21,7 +25,10 @@ public class DexScreenerService {
 
     private final DexScreenerClient dexScreenerClient;
     private final ClickHouseService clickHouseService;
-    private final Map<String, TokenPrice> lastPrices = new ConcurrentHashMap<>();
+    private final PriceTickDispatcher tickDispatcher;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBoard priceBoard;
+    private final PriceStreams priceStreams;
     private final List<String> tokens;
 
     @EventListener(ApplicationReadyEvent.class)
@@ -37,37 +44,50 @@ public class DexScreenerService {
         }
     }
 
-    public Flux<TokenPrice> subscribeToTokenPrice(String token) {
+    public Flux<TokenPrice> subscribeToTokenPrice(String token, String consumer, DeliveryPolicy policy) {
         log.info("Subscribing to DEXScreener token price for: {}", token);
-        return dexScreenerClient.getPriceStream(token);
+        return dexScreenerClient.getPriceStream(token, consumer, policy);
     }
 
     private void subscribeAndLog(String token) {
-        subscribeToTokenPrice(token)
+        int symbolId = symbolRegistry.register(token);
+        // Detection only needs the newest quote
+        subscribeToTokenPrice(token, "board", DeliveryPolicy.CONFLATE)
                 .subscribe(
                         price -> {
                             if (price != null) {
-                                lastPrices.put(token, price);
-                                logLastPrice(token);
+                                priceBoard.publish(symbolId, Venue.DEX_SCREENER, price);
+                                tickDispatcher.onTick(symbolId);
                             }
                         },
                         error -> log.error("Error in DEXScreener price subscription for {}: {}", token, error.getMessage())
                 );
+        // Persistence sees every price, off the feed thread and within the configured bound
+        subscribeToTokenPrice(token, "persistence", priceStreams.getPersistencePolicy())
+                .publishOn(priceStreams.getConsumerScheduler(), 1)
+                .subscribe(
+                        this::logPrice,
+                        error -> log.error("Error in DEXScreener price subscription for {}: {}", token, error.getMessage())
+                );
     }
 
     public void logLastPrice(String token) {
-        TokenPrice price = lastPrices.get(token);
+        TokenPrice price = priceBoard.get(token, Venue.DEX_SCREENER);
         if (price != null) {
-            log.info("Latest DEXScreener price for {}: {} at {}",
-                    price.getSymbol(),
-                    price.getPrice(),
-                    price.getTimestamp());
-            clickHouseService.bufferPriceReactive(price);
+            logPrice(price);
         } else {
             log.info("No DEXScreener price data received yet for {}", token);
         }
     }
 
+    private void logPrice(TokenPrice price) {
+        log.info("Latest DEXScreener price for {}: {} at {}",
+                price.getSymbol(),
+                price.getPrice(),
+                price.getTimestamp());
+        clickHouseService.bufferPrice(price);
+    }
+
 //    public void logAllLastPrices() {
 //        if (lastPrices.isEmpty()) {
 //            log.info("No DEXScreener price data received yet for any token");
@@ -83,10 +103,14 @@ public class DexScreenerService {
 //    }
 
     public TokenPrice getLatestPrice(String token) {
-        return lastPrices.get(token);
+        return priceBoard.get(token, Venue.DEX_SCREENER);
+    }
+
+    public TokenPrice getLatestPrice(int symbolId) {
+        return priceBoard.get(symbolId, Venue.DEX_SCREENER);
     }
 
     public Map<String, TokenPrice> getAllLatestPrices() {
-        return new ConcurrentHashMap<>(lastPrices);
+        return priceBoard.snapshot(Venue.DEX_SCREENER);
     }
 }
\ No newline at end of file
@@ -11,13 +11,17 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import trader.arbitrage.client.MexcWebSocketClient;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.arbitrage.PriceTickDispatcher;
 import trader.arbitrage.service.clickhouse.ClickHouseService;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
+import trader.arbitrage.service.stream.PriceStreams;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -26,8 +30,11 @@ public class MexcPriceService {
 
     private final MexcWebSocketClient webSocketService;
     private final ClickHouseService clickHouseService;
+    private final PriceTickDispatcher tickDispatcher;
     private final ObjectMapper objectMapper;
-    private final Map<String, TokenPrice> lastPrices = new ConcurrentHashMap<>();
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBoard priceBoard;
+    private final PriceStreams priceStreams;
 
     @EventListener(ApplicationReadyEvent.class)
     public void initAfterStartup() {
@@ -43,36 +50,50 @@ public class MexcPriceService {
             log.error("Failed to initialize MexcPriceService: {}", e.getMessage(), e);
         }
     }
-    public Flux<TokenPrice> subscribeToTokenPrice(String token) {
+    public Flux<TokenPrice> subscribeToTokenPrice(String token, String consumer, DeliveryPolicy policy) {
         log.info("Subscribing to token price for: {}", token);
-        return webSocketService.getTokenPriceStream(token);
+        return webSocketService.getPriceStream(token, consumer, policy);
     }
 
     private void subscribeAndLog(String token) {
-        subscribeToTokenPrice(token)
+        int symbolId = symbolRegistry.register(token);
+        // Detection only needs the newest quote
+        subscribeToTokenPrice(token, "board", DeliveryPolicy.CONFLATE)
                 .subscribe(
                         price -> {
-                            lastPrices.put(token, price);
-                            logLastPrice(token);
+                            priceBoard.publish(symbolId, Venue.MEXC, price);
+                            tickDispatcher.onTick(symbolId);
                         },
                         error -> log.error("Error in price subscription for {}: {}", token, error.getMessage())
                 );
+        // Persistence sees every price, off the feed thread and within the configured bound
+        subscribeToTokenPrice(token, "persistence", priceStreams.getPersistencePolicy())
+                .publishOn(priceStreams.getConsumerScheduler(), 1)
+                .subscribe(
+                        this::logPrice,
+                        error -> log.error("Error in price subscription for {}: {}", token, error.getMessage())
+                );
     }
 
     public void logLastPrice(String token) {
-        TokenPrice price = lastPrices.get(token);
+        TokenPrice price = priceBoard.get(token, Venue.MEXC);
         if (price != null) {
-            log.info("Latest price for {}: {} at {}",
-                    price.getSymbol(),
-                    price.getPrice(),
-                    price.getTimestamp());
-            clickHouseService.bufferPriceReactive(price);
+            logPrice(price);
         } else {
             log.info("No price data received yet for {}", token);
         }
     }
 
+    private void logPrice(TokenPrice price) {
+        log.info("Latest price for {}: {} at {}",
+                price.getSymbol(),
+                price.getPrice(),
+                price.getTimestamp());
+        clickHouseService.bufferPrice(price);
+    }
+
     public void logAllLastPrices() {
+        Map<String, TokenPrice> lastPrices = priceBoard.snapshot(Venue.MEXC);
         if (lastPrices.isEmpty()) {
             log.info("No price data received yet for any token");
             return;
@@ -86,12 +107,16 @@ public class MexcPriceService {
         );
     }
     public TokenPrice getLatestPrice(String token) {
-        return lastPrices.get(token);
+        return priceBoard.get(token, Venue.MEXC);
+    }
+
+    public TokenPrice getLatestPrice(int symbolId) {
+        return priceBoard.get(symbolId, Venue.MEXC);
     }
 
     // New method to get all latest prices
     public Map<String, TokenPrice> getAllLatestPrices() {
-        return new ConcurrentHashMap<>(lastPrices);
+        return priceBoard.snapshot(Venue.MEXC);
     }
 
     // New method to get all configured tokens
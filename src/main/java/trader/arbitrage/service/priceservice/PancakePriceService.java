@@ -8,31 +8,38 @@ import reactor.core.publisher.Flux;
 import trader.arbitrage.client.PancakeClient;
 import trader.arbitrage.config.PancakeProperties;
 import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.arbitrage.PriceTickDispatcher;
+import trader.arbitrage.service.registry.SymbolRegistry;
+import trader.arbitrage.service.stream.DeliveryPolicy;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PancakePriceService {
     private final PancakeClient client;
-    private final Map<String, TokenPrice> latestPrices = new ConcurrentHashMap<>();
     private final PancakeProperties props;
+    private final PriceTickDispatcher tickDispatcher;
+    private final SymbolRegistry symbolRegistry;
+    private final PriceBoard priceBoard;
 
     @PostConstruct
     public void init() {
         log.info("Initializing subscriptions to Pancake price streams...");
 
         props.getTokens().keySet().forEach(symbol -> {
-            String fullSymbol = symbol + "_USDT";
+            String fullSymbol = SymbolRegistry.pairSymbol(symbol);
+            int symbolId = symbolRegistry.register(fullSymbol);
 
             log.info("Subscribing to price stream for: {}", fullSymbol);
 
-            client.getPriceStream(fullSymbol)
+            // Detection only needs the newest quote
+            client.getPriceStream(symbolId, "board", DeliveryPolicy.CONFLATE)
                     .subscribe(tp -> {
-                        latestPrices.put(fullSymbol, tp);
+                        priceBoard.publish(symbolId, Venue.PANCAKE, tp);
+                        tickDispatcher.onTick(symbolId);
                         log.debug("Received price update for {}: {}", fullSymbol, tp.getPrice());
                     }, error -> {
                         log.error("Error in stream for {}: {}", fullSymbol, error.getMessage(), error);
@@ -43,10 +50,19 @@ public class PancakePriceService {
         log.info("All subscriptions initialized.");
     }
 
-    public Flux<TokenPrice> getPriceStream(String symbol) {
-        return client.getPriceStream(symbol);
+    public Flux<TokenPrice> getPriceStream(String symbol, String consumer, DeliveryPolicy policy) {
+        return client.getPriceStream(symbol, consumer, policy);
     }
+
+    public TokenPrice getLatestPrice(String symbol) {
+        return priceBoard.get(symbol, Venue.PANCAKE);
+    }
+
+    public TokenPrice getLatestPrice(int symbolId) {
+        return priceBoard.get(symbolId, Venue.PANCAKE);
+    }
+
     public Map<String, TokenPrice> getLatestSnapshot() {
-        return new HashMap<>(latestPrices);
+        return priceBoard.snapshot(Venue.PANCAKE);
     }
 }
@@ -0,0 +1,173 @@
+package trader.arbitrage.service.priceservice;
+
+import org.springframework.stereotype.Component;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latest price of every symbol on every venue, laid out as a symbol × venue matrix
+ * (row-major, so the venues of one symbol are adjacent).
+ * <p>
+ * Each slot is a seqlock: the writer makes the version odd, updates the fields in place and
+ * publishes an even version; a reader retries until it sees the same even version before and
+ * after copying the fields. Writes and reads are lock-free and never allocate. Version 0 means
+ * the venue has not published a price for the symbol yet.
+ * <p>
+ * A venue that only publishes on change (PancakeSwap reserves) can also confirm that its whole
+ * column is current; once such a confirmation is older than the venue's limit, the column counts
+ * as stale. Venues that never confirm are never stale.
+ */
+@Component
+public class PriceBoard {
+
+    private static final int VENUES = Venue.values().length;
+
+    private final SymbolRegistry symbolRegistry;
+    private final AtomicLongArray versions;
+    private final long[] mantissas;
+    private final int[] scales;
+    private final long[] timestamps;
+    private final TokenPrice[] prices;
+    // Per venue: wall-clock millis of the last confirmation and how long it holds, 0 if never confirmed
+    private final AtomicLongArray confirmedAt = new AtomicLongArray(VENUES);
+    private final AtomicLongArray staleAfter = new AtomicLongArray(VENUES);
+
+    public PriceBoard(SymbolRegistry symbolRegistry) {
+        this.symbolRegistry = symbolRegistry;
+        int slots = symbolRegistry.capacity() * VENUES;
+        this.versions = new AtomicLongArray(slots);
+        this.mantissas = new long[slots];
+        this.scales = new int[slots];
+        this.timestamps = new long[slots];
+        this.prices = new TokenPrice[slots];
+    }
+
+    /**
+     * Replaces the venue's price of the symbol in place
+     */
+    public void publish(int symbolId, Venue venue, TokenPrice price) {
+        int slot = slot(symbolId, venue);
+        long version = versions.get(slot);
+        // Each slot normally has a single writer; the CAS only guards against an overlapping one
+        while ((version & 1) != 0 || !versions.compareAndSet(slot, version, version + 1)) {
+            Thread.onSpinWait();
+            version = versions.get(slot);
+        }
+        mantissas[slot] = price.getPriceMantissa();
+        scales[slot] = price.getPriceScale();
+        timestamps[slot] = price.getTimestamp() != null ? price.getTimestamp().toEpochMilli() : 0;
+        prices[slot] = price;
+        versions.set(slot, version + 2);
+    }
+
+    /**
+     * Copies a consistent view of the slot into {@code out}
+     *
+     * @return false if the venue has not published a price for the symbol yet
+     */
+    public boolean read(int symbolId, Venue venue, VenueQuote out) {
+        int slot = slot(symbolId, venue);
+        long before;
+        long after;
+        do {
+            before = versions.get(slot);
+            if (before == 0) {
+                return false;
+            }
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                after = before + 1;
+                continue;
+            }
+            out.priceMantissa = mantissas[slot];
+            out.priceScale = scales[slot];
+            out.timestampMillis = timestamps[slot];
+            out.price = prices[slot];
+            VarHandle.loadLoadFence();
+            after = versions.get(slot);
+        } while (before != after);
+        out.version = before;
+        return true;
+    }
+
+    /**
+     * Confirms that every price of the venue is current as of {@code nowMillis}
+     *
+     * @param staleAfterMillis how long the confirmation holds
+     */
+    public void confirmVenue(Venue venue, long nowMillis, long staleAfterMillis) {
+        staleAfter.set(venue.ordinal(), staleAfterMillis);
+        confirmedAt.set(venue.ordinal(), nowMillis);
+    }
+
+    /**
+     * @return true if the venue confirms its prices and the last confirmation has expired
+     */
+    public boolean isStale(Venue venue, long nowMillis) {
+        long confirmed = confirmedAt.get(venue.ordinal());
+        long limit = staleAfter.get(venue.ordinal());
+        return confirmed > 0 && limit > 0 && nowMillis - confirmed > limit;
+    }
+
+    /**
+     * @return millis since the venue last confirmed its prices, or -1 if it never did
+     */
+    public long venueAge(Venue venue, long nowMillis) {
+        long confirmed = confirmedAt.get(venue.ordinal());
+        return confirmed > 0 ? nowMillis - confirmed : -1;
+    }
+
+    /**
+     * @return the last published price, or null
+     */
+    public TokenPrice get(int symbolId, Venue venue) {
+        if (symbolId < 0) {
+            return null;
+        }
+        int slot = slot(symbolId, venue);
+        // The volatile read pairs with the version published after the price
+        return versions.get(slot) != 0 ? prices[slot] : null;
+    }
+
+    public TokenPrice get(String symbol, Venue venue) {
+        return get(symbolRegistry.id(symbol), venue);
+    }
+
+    /**
+     * @return version stamp of the slot, incremented by two on every publish; 0 if never published
+     */
+    public long version(int symbolId, Venue venue) {
+        return versions.get(slot(symbolId, venue)) & ~1L;
+    }
+
+    /**
+     * @return number of symbol rows in use; IDs below this value are valid
+     */
+    public int symbolCount() {
+        return symbolRegistry.size();
+    }
+
+    /**
+     * @return a copy of the venue's column keyed by symbol, for diagnostics and APIs only
+     */
+    public Map<String, TokenPrice> snapshot(Venue venue) {
+        Map<String, TokenPrice> snapshot = new HashMap<>();
+        for (int id = 0, size = symbolRegistry.size(); id < size; id++) {
+            TokenPrice price = get(id, venue);
+            if (price != null) {
+                snapshot.put(symbolRegistry.symbol(id), price);
+            }
+        }
+        return snapshot;
+    }
+
+    private static int slot(int symbolId, Venue venue) {
+        return symbolId * VENUES + venue.ordinal();
+    }
+}
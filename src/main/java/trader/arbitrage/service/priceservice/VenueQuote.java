@@ -0,0 +1,24 @@
+package trader.arbitrage.service.priceservice;
+
+import lombok.Getter;
+import trader.arbitrage.model.TokenPrice;
+
+/**
+ * Mutable holder a {@link PriceBoard} slot is read into.
+ * Readers keep one instance per thread and reuse it, so reading the board does not allocate.
+ */
+@Getter
+public class VenueQuote {
+    long priceMantissa;
+    int priceScale;
+    long timestampMillis;
+    long version;
+    TokenPrice price;
+
+    /**
+     * @return true if the slot held a valid (positive) price when it was read
+     */
+    public boolean hasPrice() {
+        return priceMantissa > 0;
+    }
+}
@@ -0,0 +1,145 @@
+package trader.arbitrage.service.registry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import trader.arbitrage.model.FixedPoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Assigns dense int IDs to symbols when clients load their configuration or subscribe.
+ * Price stores and detection index preallocated arrays by these IDs, so the hot path never
+ * hashes or rebuilds symbol strings. Lookups by name, base asset or DEX token address are
+ * O(1) and meant for configuration and response parsing, not per tick.
+ */
+@Slf4j
+@Component
+public class SymbolRegistry {
+
+    public static final String QUOTE_SUFFIX = "_USDT";
+
+    private static final int UNSET_SCALE = -1;
+
+    private final int capacity;
+    private final String[] symbols;
+    private final String[] baseAssets;
+    private final AtomicIntegerArray scales;
+    private final Map<String, Integer> idsBySymbol = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByBase = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByAddress = new ConcurrentHashMap<>();
+    private volatile int size;
+
+    public SymbolRegistry(@Value("${arbitrage.symbols.capacity:4096}") int capacity) {
+        this.capacity = capacity;
+        this.symbols = new String[capacity];
+        this.baseAssets = new String[capacity];
+        this.scales = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            scales.set(i, UNSET_SCALE);
+        }
+    }
+
+    /**
+     * @return the ID of the symbol, assigning the next free one on first registration
+     */
+    public int register(String symbol) {
+        Integer id = idsBySymbol.get(symbol);
+        return id != null ? id : registerNew(symbol);
+    }
+
+    private synchronized int registerNew(String symbol) {
+        Integer existing = idsBySymbol.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        if (size >= capacity) {
+            throw new IllegalStateException("Symbol registry is full (" + capacity
+                    + "), raise arbitrage.symbols.capacity to register " + symbol);
+        }
+        int id = size;
+        String base = symbol.endsWith(QUOTE_SUFFIX)
+                ? symbol.substring(0, symbol.length() - QUOTE_SUFFIX.length())
+                : symbol;
+        symbols[id] = symbol;
+        baseAssets[id] = base;
+        idsByBase.putIfAbsent(base, id);
+        idsBySymbol.put(symbol, id);
+        // Publishes the array writes above to readers that check size()
+        size = id + 1;
+        log.debug("Registered symbol {} with id {}", symbol, id);
+        return id;
+    }
+
+    /**
+     * Registers a DEX token address for the symbol; EVM addresses are matched case-insensitively
+     */
+    public int registerAddress(String address, String symbol) {
+        int id = register(symbol);
+        idsByAddress.put(normalizeAddress(address), id);
+        return id;
+    }
+
+    /**
+     * @return the ID of a registered symbol or -1
+     */
+    public int id(String symbol) {
+        Integer id = idsBySymbol.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the ID of the USDT pair for a base asset such as "RFC", or -1
+     */
+    public int idOfBase(String baseAsset) {
+        Integer id = idsByBase.get(baseAsset);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return the ID of the symbol a DEX token address was registered for, or -1
+     */
+    public int idOfAddress(String address) {
+        Integer id = idsByAddress.get(normalizeAddress(address));
+        return id != null ? id : -1;
+    }
+
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    public String baseAsset(int id) {
+        return baseAssets[id];
+    }
+
+    /**
+     * Fixed-point scale every price of the symbol is compared at, chosen from the first price seen
+     */
+    public int scale(int id, long firstMantissa, int firstScale) {
+        int scale = scales.get(id);
+        if (scale == UNSET_SCALE) {
+            scales.compareAndSet(id, UNSET_SCALE, FixedPoint.symbolScale(firstMantissa, firstScale));
+            scale = scales.get(id);
+        }
+        return scale;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public static String pairSymbol(String baseAsset) {
+        return baseAsset + QUOTE_SUFFIX;
+    }
+
+    private static String normalizeAddress(String address) {
+        // Solana addresses are case-sensitive base58, EVM addresses are hex with a checksum casing
+        return address.startsWith("0x") || address.startsWith("0X") ? address.toLowerCase() : address;
+    }
+}
@@ -0,0 +1,32 @@
+package trader.arbitrage.service.stream;
+
+import java.util.Locale;
+
+/**
+ * How a price stream consumer that falls behind is fed. Every policy bounds the memory held per consumer.
+ */
+public enum DeliveryPolicy {
+    /**
+     * Keeps only the newest price; superseded ones are dropped. For consumers that need the latest quote only.
+     */
+    CONFLATE,
+    /**
+     * Queues up to the buffer size and drops the oldest queued price when full
+     */
+    DROP_OLDEST,
+    /**
+     * Queues up to the buffer size and never discards a queued price; when full the incoming one is rejected
+     */
+    LOSSLESS_BOUNDED;
+
+    /**
+     * @param value property value such as {@code conflate}, {@code drop-oldest} or {@code lossless-bounded}
+     */
+    public static DeliveryPolicy parse(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    public String tagValue() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
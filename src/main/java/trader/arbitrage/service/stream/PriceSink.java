@@ -0,0 +1,87 @@
+package trader.arbitrage.service.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.Venue;
+
+/**
+ * Price stream of one symbol on one venue.
+ * <p>
+ * The sink itself holds nothing: prices go straight to the consumers, each of which subscribes
+ * through {@link #asFlux(String, DeliveryPolicy)} with its own bounded buffer and policy. A slow
+ * consumer therefore only affects itself, and whatever it drops is counted in
+ * {@code price.stream.dropped} tagged with venue, symbol, consumer and policy.
+ */
+public class PriceSink {
+
+    private static final int MAX_EMIT_SPINS = 100;
+
+    private final Venue venue;
+    private final String symbol;
+    private final int bufferSize;
+    private final MeterRegistry registry;
+    private final Sinks.Many<TokenPrice> sink = Sinks.many().multicast().directBestEffort();
+    private final Counter emitFailures;
+
+    PriceSink(Venue venue, String symbol, int bufferSize, MeterRegistry registry) {
+        this.venue = venue;
+        this.symbol = symbol;
+        this.bufferSize = bufferSize;
+        this.registry = registry;
+        this.emitFailures = Counter.builder("price.stream.emit.failed")
+                .description("Prices that could not be handed to the consumers of a stream")
+                .tag("venue", venue.exchangeName())
+                .tag("symbol", symbol)
+                .register(registry);
+    }
+
+    /**
+     * Hands the price to all current consumers; without consumers it is discarded
+     *
+     * @return false if the price could not be emitted
+     */
+    public boolean emit(TokenPrice price) {
+        Sinks.EmitResult result = sink.tryEmitNext(price);
+        // Two producers may briefly overlap (e.g. while MEXC shards rebalance); wait for the other one
+        for (int spins = 0; result == Sinks.EmitResult.FAIL_NON_SERIALIZED && spins < MAX_EMIT_SPINS; spins++) {
+            Thread.onSpinWait();
+            result = sink.tryEmitNext(price);
+        }
+        if (result.isSuccess() || result == Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            return result.isSuccess();
+        }
+        emitFailures.increment();
+        return false;
+    }
+
+    /**
+     * @param consumer name of the consumer, used as metric tag
+     */
+    public Flux<TokenPrice> asFlux(String consumer, DeliveryPolicy policy) {
+        Counter dropped = Counter.builder("price.stream.dropped")
+                .description("Prices dropped for a consumer that fell behind")
+                .tag("venue", venue.exchangeName())
+                .tag("symbol", symbol)
+                .tag("consumer", consumer)
+                .tag("policy", policy.tagValue())
+                .register(registry);
+        Flux<TokenPrice> flux = sink.asFlux();
+        return switch (policy) {
+            case CONFLATE -> flux.onBackpressureBuffer(1, p -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+            case DROP_OLDEST -> flux.onBackpressureBuffer(bufferSize, p -> dropped.increment(), BufferOverflowStrategy.DROP_OLDEST);
+            case LOSSLESS_BOUNDED -> flux.onBackpressureBuffer(bufferSize, p -> dropped.increment(), BufferOverflowStrategy.DROP_LATEST);
+        };
+    }
+
+    public Venue getVenue() {
+        return venue;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,43 @@
+package trader.arbitrage.service.stream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import trader.arbitrage.model.Venue;
+
+/**
+ * Creates the per-symbol price sinks of the clients and holds the delivery settings of their consumers
+ */
+@Component
+public class PriceStreams {
+
+    private final MeterRegistry registry;
+    private final int bufferSize;
+    @Getter
+    private final DeliveryPolicy persistencePolicy;
+    // Runs the consumers that must not slow down the feed, e.g. persistence
+    @Getter
+    private final Scheduler consumerScheduler = Schedulers.newSingle("price-consumers");
+
+    public PriceStreams(
+            MeterRegistry registry,
+            @Value("${price.stream.buffer-size:1024}") int bufferSize,
+            @Value("${price.stream.persistence.policy:lossless-bounded}") String persistencePolicy) {
+        this.registry = registry;
+        this.bufferSize = bufferSize;
+        this.persistencePolicy = DeliveryPolicy.parse(persistencePolicy);
+    }
+
+    public PriceSink create(Venue venue, String symbol) {
+        return new PriceSink(venue, symbol, bufferSize, registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        consumerScheduler.dispose();
+    }
+}
@@ -0,0 +1,158 @@
+package trader.arbitrage.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import trader.arbitrage.model.ArbitrageOpportunity;
+import trader.arbitrage.model.Venue;
+import trader.arbitrage.service.registry.SymbolRegistry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which spreads are worth an alert and batches the alerts into Telegram messages.
+ * <p>
+ * A symbol enters the alerted state once its best spread reaches {@code arbitrage.threshold} and
+ * leaves it only when the spread falls below {@code arbitrage.alert.exit-threshold}. While alerted,
+ * it is re-alerted only if the buy/sell venue pair changes or the spread moves by at least
+ * {@code arbitrage.alert.material-change}. Alerts submitted within one {@code telegram.digest.window}
+ * are sent as a single message, keeping only the newest alert per symbol.
+ */
+@Slf4j
+@Component
+public class ArbitrageAlertAggregator {
+
+    public enum Transition { NONE, ENTER, CHANGE, EXIT }
+
+    private static final int VENUES = Venue.values().length;
+    private static final int INACTIVE = -1;
+
+    private final TelegramNotificationService telegramService;
+    private final long enterBasisPoints;
+    private final long exitBasisPoints;
+    private final long materialChangeBasisPoints;
+
+    // Indexed by symbol ID and only touched by detection, which runs on one thread at a time
+    private final int[] alertedPairs;
+    private final long[] alertedSpreads;
+
+    // Newest alert per symbol since the last flush; guarded by itself
+    private final Map<String, ArbitrageOpportunity> pending = new LinkedHashMap<>();
+
+    private final Counter suppressedCounter;
+    private final Counter coalescedCounter;
+    private final Counter digestsCounter;
+
+    public ArbitrageAlertAggregator(
+            TelegramNotificationService telegramService,
+            SymbolRegistry symbolRegistry,
+            MeterRegistry registry,
+            @Value("${arbitrage.threshold}") double threshold,
+            @Value("${arbitrage.alert.exit-threshold:1.5}") double exitThreshold,
+            @Value("${arbitrage.alert.material-change:0.5}") double materialChange) {
+        this.telegramService = telegramService;
+        this.enterBasisPoints = toBasisPoints(threshold);
+        this.exitBasisPoints = Math.min(toBasisPoints(exitThreshold), enterBasisPoints);
+        this.materialChangeBasisPoints = toBasisPoints(materialChange);
+        this.alertedPairs = new int[symbolRegistry.capacity()];
+        this.alertedSpreads = new long[symbolRegistry.capacity()];
+        Arrays.fill(alertedPairs, INACTIVE);
+
+        this.suppressedCounter = Counter.builder("arbitrage.alerts.suppressed")
+                .description("Evaluations above the exit threshold that did not warrant a new alert")
+                .register(registry);
+        this.coalescedCounter = Counter.builder("arbitrage.alerts.coalesced")
+                .description("Alerts replaced by a newer one for the same symbol before being sent")
+                .register(registry);
+        this.digestsCounter = Counter.builder("arbitrage.alerts.digests")
+                .description("Telegram messages carrying more than one alert")
+                .register(registry);
+    }
+
+    private static long toBasisPoints(double percent) {
+        return BigDecimal.valueOf(percent)
+                .movePointRight(2)
+                .setScale(0, RoundingMode.CEILING)
+                .longValueExact();
+    }
+
+    /**
+     * Feeds the current best spread of a symbol through the hysteresis
+     *
+     * @return {@link Transition#ENTER} or {@link Transition#CHANGE} if an alert should be raised,
+     * {@link Transition#EXIT} if an alerted spread has closed
+     */
+    public Transition update(int symbolId, Venue buyVenue, Venue sellVenue, long spreadBasisPoints) {
+        int pair = buyVenue.id() * VENUES + sellVenue.id();
+        int alertedPair = alertedPairs[symbolId];
+        if (alertedPair == INACTIVE) {
+            if (spreadBasisPoints < enterBasisPoints) {
+                return Transition.NONE;
+            }
+            alertedPairs[symbolId] = pair;
+            alertedSpreads[symbolId] = spreadBasisPoints;
+            return Transition.ENTER;
+        }
+        if (spreadBasisPoints < exitBasisPoints) {
+            alertedPairs[symbolId] = INACTIVE;
+            return Transition.EXIT;
+        }
+        if (pair != alertedPair && spreadBasisPoints >= enterBasisPoints
+                || Math.abs(spreadBasisPoints - alertedSpreads[symbolId]) >= materialChangeBasisPoints) {
+            alertedPairs[symbolId] = pair;
+            alertedSpreads[symbolId] = spreadBasisPoints;
+            return Transition.CHANGE;
+        }
+        suppressedCounter.increment();
+        return Transition.NONE;
+    }
+
+    /**
+     * Queues an alert for the next digest
+     */
+    public void submit(ArbitrageOpportunity opportunity) {
+        synchronized (pending) {
+            if (pending.put(opportunity.getSymbol(), opportunity) != null) {
+                coalescedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Sends the alerts collected since the last flush, as a single message
+     */
+    @Scheduled(fixedDelayString = "${telegram.digest.window:5000}")
+    public void flush() {
+        List<ArbitrageOpportunity> alerts;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            alerts = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        if (alerts.size() > 1) {
+            digestsCounter.increment();
+        }
+        (alerts.size() == 1
+                ? telegramService.sendArbitrageNotification(alerts.get(0))
+                : telegramService.sendArbitrageDigest(alerts))
+                .subscribe(
+                        sent -> {
+                            if (sent) {
+                                log.info("Telegram notification sent for {} arbitrage alert(s)", alerts.size());
+                            }
+                        },
+                        error -> log.error("Error sending Telegram notification: {}", error.getMessage())
+                );
+    }
+}
@@ -0,0 +1,165 @@
+package trader.arbitrage.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import trader.arbitrage.client.ratelimit.RateLimiter;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded outbound message queue drained at the pace of a {@link RateLimiter}. Messages leave in
+ * order of priority (widest spread first) and, among equal priorities, freshest first. When the queue is full a new
+ * message evicts the least valuable one if it outranks it. Messages older than the maximum age
+ * expire instead of being sent.
+ * <p>
+ * The drain loop runs on a single scheduler thread and takes a limiter slot per message, so a
+ * {@code Retry-After} seen by the WebClient also holds back the queue.
+ */
+@Slf4j
+class PriorityOutboundQueue {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingLong((Entry entry) -> entry.priority).reversed()
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.enqueuedNanos).reversed());
+
+    private final int capacity;
+    private final long maxAgeNanos;
+    private final RateLimiter rateLimiter;
+    private final Function<String, Mono<Boolean>> sender;
+    // Guarded by itself
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(ORDER);
+    private final Scheduler scheduler = Schedulers.newSingle("telegram-outbound");
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final Counter expiredCounter;
+    private final Counter droppedCounter;
+    private final Timer waitTimer;
+
+    PriorityOutboundQueue(
+            int capacity,
+            Duration maxAge,
+            RateLimiter rateLimiter,
+            Function<String, Mono<Boolean>> sender,
+            MeterRegistry registry) {
+        this.capacity = capacity;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.rateLimiter = rateLimiter;
+        this.sender = sender;
+
+        Gauge.builder("telegram.queue.depth", queue, q -> {
+                    synchronized (q) {
+                        return q.size();
+                    }
+                })
+                .description("Telegram messages waiting to be sent")
+                .register(registry);
+        this.waitTimer = Timer.builder("telegram.queue.wait")
+                .description("Time a Telegram message spent in the outbound queue before being sent")
+                .register(registry);
+        this.expiredCounter = Counter.builder("telegram.queue.expired")
+                .description("Telegram messages that expired in the outbound queue")
+                .register(registry);
+        this.droppedCounter = Counter.builder("telegram.queue.dropped")
+                .description("Telegram messages rejected or evicted because the outbound queue was full")
+                .register(registry);
+    }
+
+    /**
+     * Queues a message
+     *
+     * @param priority higher goes first, e.g. the spread in basis points
+     * @return true once the message is sent, false if it expired, was dropped or failed
+     */
+    Mono<Boolean> submit(String text, String subject, long priority) {
+        Entry entry = new Entry(text, subject, priority, System.nanoTime());
+        Entry dropped = null;
+        synchronized (queue) {
+            queue.add(entry);
+            if (queue.size() > capacity) {
+                // The least valuable entry, possibly the new one
+                dropped = queue.stream().max(ORDER).orElseThrow();
+                queue.remove(dropped);
+            }
+        }
+        if (dropped != null) {
+            log.warn("Telegram outbound queue full, dropping notification for {}", dropped.subject);
+            droppedCounter.increment();
+            dropped.result.tryEmitValue(false);
+        }
+        scheduleDrain(0);
+        return entry.result.asMono();
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (drainScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        long now = System.nanoTime();
+        while (true) {
+            Entry next;
+            synchronized (queue) {
+                queue.removeIf(entry -> expire(entry, now));
+                if (queue.isEmpty()) {
+                    return;
+                }
+                if (!rateLimiter.tryAcquire()) {
+                    break;
+                }
+                next = queue.poll();
+            }
+            waitTimer.record(now - next.enqueuedNanos, TimeUnit.NANOSECONDS);
+            sender.apply(next.text)
+                    .subscribe(
+                            sent -> next.result.tryEmitValue(sent),
+                            error -> next.result.tryEmitValue(false)
+                    );
+        }
+        scheduleDrain(Math.max(TimeUnit.MILLISECONDS.toNanos(1), rateLimiter.nanosUntilAvailable()));
+    }
+
+    private boolean expire(Entry entry, long now) {
+        if (now - entry.enqueuedNanos < maxAgeNanos) {
+            return false;
+        }
+        log.info("Telegram notification for {} expired after {} ms in the queue",
+                entry.subject, TimeUnit.NANOSECONDS.toMillis(now - entry.enqueuedNanos));
+        expiredCounter.increment();
+        entry.result.tryEmitValue(false);
+        return true;
+    }
+
+    void dispose() {
+        scheduler.dispose();
+    }
+
+    private static final class Entry {
+        final String text;
+        final String subject;
+        final long priority;
+        final long enqueuedNanos;
+        final Sinks.One<Boolean> result = Sinks.one();
+
+        Entry(String text, String subject, long priority, long enqueuedNanos) {
+            this.text = text;
+            this.subject = subject;
+            this.priority = priority;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package trader.arbitrage.telegram;
 
 import io.github.cdimascio.dotenv.Dotenv;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,10 +13,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
+import trader.arbitrage.client.ratelimit.RateLimiter;
 import trader.arbitrage.model.ArbitrageOpportunity;
 
+import java.math.BigDecimal;
 import java.time.Duration;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -23,7 +30,8 @@ public class TelegramNotificationService {
     private final WebClient telegramWebClient;
     private final Dotenv dotenv;
     private final Counter telegramNotificationsCounter;
-
+    private final MeterRegistry registry;
+    private final RateLimiter telegramRateLimiter;
 
     @Value("${telegram.enabled:false}")
     private boolean telegramEnabled;
@@ -37,12 +45,31 @@ public class TelegramNotificationService {
     @Value("${telegram.retry.max-backoff:10000}")
     private long maxBackoffMillis;
 
-    @Value("${telegram.rate-limit.messages-per-minute:20}")
-    private int maxMessagesPerMinute;
+    @Value("${telegram.queue.capacity:100}")
+    private int queueCapacity;
+
+    @Value("${telegram.queue.max-age:60000}")
+    private long queueMaxAgeMillis;
+
+    @Value("${telegram.digest.max-entries:20}")
+    private int maxDigestEntries;
+
+    private PriorityOutboundQueue outboundQueue;
 
-    // Rate limiting tracking
-    private final AtomicInteger messagesSentInCurrentMinute = new AtomicInteger(0);
-    private long currentMinuteStartTime = System.currentTimeMillis();
+    @PostConstruct
+    public void init() {
+        outboundQueue = new PriorityOutboundQueue(
+                queueCapacity,
+                Duration.ofMillis(queueMaxAgeMillis),
+                telegramRateLimiter,
+                this::post,
+                registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outboundQueue.dispose();
+    }
 
     /**
      * Sends an arbitrage opportunity notification to Telegram
@@ -51,19 +78,43 @@ public class TelegramNotificationService {
      * @return Mono<Boolean> indicating success or failure
      */
     public Mono<Boolean> sendArbitrageNotification(ArbitrageOpportunity opportunity) {
-        String chatId = dotenv.get("TELEGRAM_CHAT_ID");
+        return sendMessage(formatArbitrageMessage(opportunity), opportunity.getSymbol(), priority(opportunity));
+    }
+
+    /**
+     * Sends several arbitrage opportunities as one message, widest spreads first
+     *
+     * @return Mono<Boolean> indicating success or failure
+     */
+    public Mono<Boolean> sendArbitrageDigest(List<ArbitrageOpportunity> opportunities) {
+        long priority = opportunities.stream()
+                .mapToLong(this::priority)
+                .max()
+                .orElse(0);
+        return sendMessage(formatDigestMessage(opportunities), opportunities.size() + " opportunities", priority);
+    }
+
+    /**
+     * Queues a message; it is sent when the rate limit allows, unless it expires first
+     */
+    private Mono<Boolean> sendMessage(String message, String subject, long priority) {
         if (!telegramEnabled) {
             log.debug("Telegram notifications are disabled");
             return Mono.just(false);
         }
+        return outboundQueue.submit(message, subject, priority);
+    }
 
-        if (!checkAndUpdateRateLimit()) {
-            log.warn("Telegram rate limit reached. Skipping notification for {}", opportunity.getSymbol());
-            return Mono.just(false);
-        }
-
-        String message = formatArbitrageMessage(opportunity);
+    /**
+     * Queue priority: the spread in hundredths of a percent
+     */
+    private long priority(ArbitrageOpportunity opportunity) {
+        BigDecimal spread = opportunity.getPriceDifferencePercent();
+        return spread != null ? spread.movePointRight(2).longValue() : 0;
+    }
 
+    private Mono<Boolean> post(String message) {
+        String chatId = dotenv.get("TELEGRAM_CHAT_ID");
         return telegramWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/sendMessage")
@@ -74,7 +125,7 @@ public class TelegramNotificationService {
                 .retrieve()
                 .bodyToMono(String.class)
                 .map(response -> {
-                    log.info("Telegram notification sent successfully for {}", opportunity.getSymbol());
+                    log.info("Telegram notification sent successfully");
                     telegramNotificationsCounter.increment();
                     return true;
                 })
@@ -89,51 +140,53 @@ public class TelegramNotificationService {
      * Format the arbitrage opportunity as a Telegram message
      */
     private String formatArbitrageMessage(ArbitrageOpportunity opportunity) {
-        String direction = opportunity.getPriceDifferencePercent().compareTo(java.math.BigDecimal.ZERO) > 0
-                ? "MEXC > " + opportunity.getSecondExchangeName()
-                : opportunity.getSecondExchangeName() + " > MEXC";
+        StringBuilder executable = new StringBuilder();
+        if (opportunity.getExecutableSpreadPercent() != null) {
+            opportunity.getExecutableSpreadPercent().forEach((notional, spread) ->
+                    executable.append(String.format("📐 <b>Executable @ %d</b>: %s%%\n", notional, spread)));
+        }
 
         return String.format(
                 "🚨 <b>ARBITRAGE OPPORTUNITY</b> 🚨\n\n" +
                         "💰 <b>Token</b>: %s\n" +
-                        "📊 <b>MEXC Price</b>: %s\n" +
-                        "📊 <b>%s Price</b>: %s\n" +
-                        "📈 <b>Price Difference</b>: %s%%\n" +
-                        "↔️ <b>Direction</b>: %s\n" +
+                        "📉 <b>Buy on %s</b>: %s\n" +
+                        "📈 <b>Sell on %s</b>: %s\n" +
+                        "📊 <b>Price Difference</b>: %s%%\n" +
+                        "%s" +
                         "⏰ <b>Timestamp</b>: %s",
                 opportunity.getSymbol(),
-                opportunity.getMexcPrice(),
-                opportunity.getSecondExchangeName(),
-                opportunity.getSecondExchangePrice(),
-                opportunity.getPriceDifferencePercent().abs(),
-                direction,
+                opportunity.getBuyExchangeName(),
+                opportunity.getBuyPrice(),
+                opportunity.getSellExchangeName(),
+                opportunity.getSellPrice(),
+                opportunity.getPriceDifferencePercent(),
+                executable,
                 opportunity.getTimestamp()
         );
     }
 
     /**
-     * Check and update rate limiting for Telegram messages
-     *
-     * @return true if message can be sent, false if rate limit is reached
+     * Format several arbitrage opportunities as one Telegram message, one line each
      */
-    private boolean checkAndUpdateRateLimit() {
-        long currentTime = System.currentTimeMillis();
-        long timeElapsed = currentTime - currentMinuteStartTime;
-
-        // Reset counter if a minute has passed
-        if (timeElapsed >= 60000) { // 60 seconds in milliseconds
-            log.debug("Resetting Telegram rate limit counter. Previous count: {}", messagesSentInCurrentMinute.get());
-            messagesSentInCurrentMinute.set(0);
-            currentMinuteStartTime = currentTime;
+    private String formatDigestMessage(List<ArbitrageOpportunity> opportunities) {
+        List<ArbitrageOpportunity> sorted = opportunities.stream()
+                .sorted(Comparator.comparing(ArbitrageOpportunity::getPriceDifferencePercent).reversed())
+                .toList();
+        StringBuilder message = new StringBuilder()
+                .append(String.format("🚨 <b>ARBITRAGE DIGEST</b> (%d) 🚨\n\n", sorted.size()));
+        for (ArbitrageOpportunity opportunity : sorted.subList(0, Math.min(sorted.size(), maxDigestEntries))) {
+            message.append(String.format("💰 <b>%s</b>: %s%% buy %s @ %s, sell %s @ %s\n",
+                    opportunity.getSymbol(),
+                    opportunity.getPriceDifferencePercent(),
+                    opportunity.getBuyExchangeName(),
+                    opportunity.getBuyPrice(),
+                    opportunity.getSellExchangeName(),
+                    opportunity.getSellPrice()));
         }
-
-        // Check if we're over the limit
-        int currentCount = messagesSentInCurrentMinute.incrementAndGet();
-        if (currentCount > maxMessagesPerMinute) {
-            return false;
+        if (sorted.size() > maxDigestEntries) {
+            message.append(String.format("… and %d more\n", sorted.size() - maxDigestEntries));
         }
-
-        return true;
+        return message.append(String.format("⏰ <b>Timestamp</b>: %s", LocalDateTime.now())).toString();
     }
 
     /**
@@ -153,14 +206,13 @@ public class TelegramNotificationService {
      * Determines if a failed request should be retried
      */
     private boolean shouldRetry(Throwable throwable) {
-        // Retry on rate limiting (429) and server errors (5xx)
+        // Retry on server errors (5xx); 429 is retried by the rate limit filter after Retry-After
         if (throwable instanceof org.springframework.web.reactive.function.client.WebClientResponseException) {
             org.springframework.web.reactive.function.client.WebClientResponseException ex =
                     (org.springframework.web.reactive.function.client.WebClientResponseException) throwable;
 
             HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
-            return status.equals(HttpStatus.TOO_MANY_REQUESTS) ||
-                    (status.is5xxServerError());
+            return status.is5xxServerError();
         }
 
         // Also retry on connection issues
@@ -0,0 +1,266 @@
+package trader.arbitrage.client.pancake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the failover transport against local JSON-RPC stubs that answer {@code eth_blockNumber}
+ * with ten times the request id
+ */
+class FailoverHttpServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long LONG_COOLDOWN = 60_000;
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .readTimeout(Duration.ofSeconds(5))
+            .build();
+    private final List<StubNode> nodes = new ArrayList<>();
+    private final ExecutorService rpcExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Web3j web3j;
+
+    @AfterEach
+    void tearDown() {
+        if (web3j != null) {
+            web3j.shutdown();
+        }
+        rpcExecutor.shutdownNow();
+        nodes.forEach(StubNode::stop);
+    }
+
+    @Test
+    void sendsRequestsToTheFastestEndpoint() throws IOException {
+        StubNode slow = node();
+        slow.delayMillis = 100;
+        StubNode fast = node();
+        web3j = web3j(LONG_COOLDOWN, slow, fast);
+
+        for (int i = 0; i < 10; i++) {
+            blockNumber();
+        }
+
+        // Both start unmeasured; the slow one is tried once, then ranks behind
+        assertThat(slow.hits.get()).isEqualTo(1);
+        assertThat(fast.hits.get()).isEqualTo(9);
+    }
+
+    @Test
+    void failsOverAndCoolsDownOnServerError() throws IOException {
+        StubNode failing = node();
+        failing.status = 503;
+        StubNode healthy = node();
+        web3j = web3j(LONG_COOLDOWN, failing, healthy);
+
+        blockNumber();
+        blockNumber();
+
+        assertThat(failing.hits.get()).isEqualTo(1);
+        assertThat(healthy.hits.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failsOverAndCoolsDownOnRateLimit() throws IOException {
+        StubNode limited = node();
+        limited.status = 429;
+        StubNode healthy = node();
+        web3j = web3j(LONG_COOLDOWN, limited, healthy);
+
+        blockNumber();
+        blockNumber();
+
+        assertThat(limited.hits.get()).isEqualTo(1);
+        assertThat(healthy.hits.get()).isEqualTo(2);
+    }
+
+    @Test
+    void returnsToAnEndpointOnceItsCooldownEnds() throws Exception {
+        StubNode recovering = node();
+        recovering.status = 503;
+        StubNode healthy = node();
+        web3j = web3j(100, recovering, healthy);
+
+        blockNumber();
+        recovering.status = 200;
+        Thread.sleep(300);
+        blockNumber();
+
+        assertThat(recovering.hits.get()).isEqualTo(2);
+        assertThat(healthy.hits.get()).isEqualTo(1);
+    }
+
+    @Test
+    void throwsClientErrorsWithoutFailover() {
+        StubNode rejecting = node();
+        rejecting.status = 413;
+        StubNode other = node();
+        web3j = web3j(LONG_COOLDOWN, rejecting, other);
+
+        assertThatThrownBy(this::blockNumber).isInstanceOf(ClientConnectionException.class).hasMessageContaining("413");
+        // Not on cooldown: the next request goes to the same endpoint
+        assertThatThrownBy(this::blockNumber).isInstanceOf(ClientConnectionException.class);
+
+        assertThat(rejecting.hits.get()).isEqualTo(2);
+        assertThat(other.hits.get()).isZero();
+    }
+
+    @Test
+    void doesNotCoolDownEndpointsForAnInterruptedCaller() throws IOException {
+        StubNode first = node();
+        StubNode second = node();
+        web3j = web3j(LONG_COOLDOWN, first, second);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(this::blockNumber).isInstanceOf(InterruptedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+        blockNumber();
+
+        // The interrupted request reached no endpoint and left the first one ranked first
+        assertThat(first.hits.get()).isEqualTo(1);
+        assertThat(second.hits.get()).isZero();
+    }
+
+    @Test
+    void sendsABatchAsOnePostAndMatchesResponsesById() {
+        StubNode node = node();
+        node.reverseBatches = true;
+        web3j = web3j(LONG_COOLDOWN, node);
+        PancakeRpc rpc = new PancakeRpc(web3j, rpcExecutor);
+        List<Request<?, EthBlockNumber>> requests = List.of(
+                web3j.ethBlockNumber(), web3j.ethBlockNumber(), web3j.ethBlockNumber());
+
+        List<EthBlockNumber> responses = rpc.sendBatch(requests).block(Duration.ofSeconds(5));
+
+        assertThat(node.hits.get()).isEqualTo(1);
+        assertThat(responses).hasSize(3);
+        for (int i = 0; i < requests.size(); i++) {
+            assertThat(responses.get(i).getId()).isEqualTo(requests.get(i).getId());
+            assertThat(responses.get(i).getBlockNumber()).isEqualTo(BigInteger.valueOf(requests.get(i).getId() * 10));
+        }
+    }
+
+    private void blockNumber() throws IOException {
+        Request<?, EthBlockNumber> request = web3j.ethBlockNumber();
+        EthBlockNumber response = request.send();
+        assertThat(response.getBlockNumber()).isEqualTo(BigInteger.valueOf(request.getId() * 10));
+    }
+
+    private Web3j web3j(long cooldownMillis, StubNode... endpoints) {
+        List<String> urls = Arrays.stream(endpoints).map(StubNode::url).toList();
+        return Web3j.build(new FailoverHttpService(urls, client, cooldownMillis, 4, new SimpleMeterRegistry()));
+    }
+
+    private StubNode node() {
+        StubNode node = new StubNode();
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * JSON-RPC endpoint on the loopback interface with a configurable status and delay
+     */
+    private static final class StubNode {
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicInteger hits = new AtomicInteger();
+        private volatile int status = 200;
+        private volatile long delayMillis;
+        private volatile boolean reverseBatches;
+
+        private StubNode() {
+            try {
+                server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        private String url() {
+            return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            hits.incrementAndGet();
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String body;
+            if (status != 200) {
+                body = "{\"error\":\"stub status " + status + "\"}";
+            } else if (request.isArray()) {
+                ArrayNode responses = MAPPER.createArrayNode();
+                for (JsonNode single : request) {
+                    responses.add(respond(single));
+                }
+                if (reverseBatches) {
+                    ArrayNode reversed = MAPPER.createArrayNode();
+                    for (int i = responses.size() - 1; i >= 0; i--) {
+                        reversed.add(responses.get(i));
+                    }
+                    responses = reversed;
+                }
+                body = MAPPER.writeValueAsString(responses);
+            } else {
+                body = MAPPER.writeValueAsString(respond(request));
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private static JsonNode respond(JsonNode request) {
+            long id = request.get("id").asLong();
+            return MAPPER.createObjectNode()
+                    .put("jsonrpc", "2.0")
+                    .put("id", id)
+                    .put("result", "0x" + Long.toHexString(id * 10));
+        }
+
+        private void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
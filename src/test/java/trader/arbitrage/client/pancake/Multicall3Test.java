@@ -0,0 +1,153 @@
+package trader.arbitrage.client.pancake;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.DynamicStruct;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the hand-written {@code aggregate3} coding against web3j's reflective encoder and decoder
+ */
+class Multicall3Test {
+
+    private static final String ROUTER = "0x10ed43c718714eb63d5aa57b78b54704e256024e";
+    private static final String PAIR = "0x0ed7e52944161450477ee417de9cd3a859b14fd0";
+    private static final String CAKE = "0x0e09fabb73bd3ade0a17ecc321fd13a19e81ce82";
+    private static final String BUSD = "0xe9e7cea3dedca5984780bafc599bd69add087d56";
+
+    @Test
+    void encodeAggregate3MatchesWeb3jForCalldataOfEveryLength() {
+        List<Multicall3.Call> calls = List.of(
+                new Multicall3.Call(PAIR, true, new byte[0]),
+                // getReserves(): selector only
+                new Multicall3.Call(PAIR, true, Numeric.hexStringToByteArray("0x0902f1ac")),
+                new Multicall3.Call(ROUTER, false, bytes(32, 7)),
+                new Multicall3.Call(ROUTER, true, bytes(33, 9)),
+                new Multicall3.Call(ROUTER, true,
+                        Multicall3.encodeGetAmountsOut(BigInteger.TEN.pow(18), List.of(CAKE, BUSD))));
+
+        List<DynamicStruct> tuples = calls.stream()
+                .map(call -> new DynamicStruct(
+                        new Address(call.target()), new Bool(call.allowFailure()), new DynamicBytes(call.callData())))
+                .toList();
+        Function aggregate3 = new Function(
+                "aggregate3", List.of(new DynamicArray<>(DynamicStruct.class, tuples)), List.of());
+
+        assertThat(Numeric.toHexString(Multicall3.encodeAggregate3(calls)))
+                .isEqualTo(FunctionEncoder.encode(aggregate3));
+    }
+
+    @Test
+    void decodeAggregate3ReadsResultsEncodedByWeb3j() {
+        byte[] reserves = bytes(96, 3);
+        // Error(string) revert data of a failed sub-call, not a multiple of a word
+        byte[] revert = Numeric.hexStringToByteArray("0x08c379a0" + "00".repeat(31) + "20" + "00".repeat(31) + "01" + "41");
+        byte[] data = encodeResults(
+                new DynamicStruct(new Bool(true), new DynamicBytes(reserves)),
+                new DynamicStruct(new Bool(false), new DynamicBytes(revert)),
+                new DynamicStruct(new Bool(true), new DynamicBytes(new byte[0])));
+
+        Multicall3.Result[] results = Multicall3.decodeAggregate3(data);
+
+        assertThat(results).hasSize(3);
+        assertThat(results[0].success()).isTrue();
+        assertThat(results[0].returnData()).isEqualTo(reserves);
+        assertThat(results[1].success()).isFalse();
+        assertThat(results[1].returnData()).isEqualTo(revert);
+        assertThat(results[2].success()).isTrue();
+        assertThat(results[2].returnData()).isEmpty();
+    }
+
+    @Test
+    void decodeLastUint256MatchesWeb3jReturnDecoder() {
+        List<Uint256> amounts = List.of(
+                new Uint256(BigInteger.TEN.pow(18)),
+                new Uint256(new BigInteger("2500000000000000000")),
+                new Uint256(BigInteger.TWO.pow(255).add(BigInteger.ONE)));
+        String encoded = FunctionEncoder.encodeConstructor(List.of(new DynamicArray<>(Uint256.class, amounts)));
+        Function getAmountsOut = new Function("getAmountsOut", List.of(),
+                List.of(new TypeReference<DynamicArray<Uint256>>() {
+                }));
+
+        List<Type> decoded = FunctionReturnDecoder.decode(encoded, getAmountsOut.getOutputParameters());
+        @SuppressWarnings("unchecked")
+        List<Uint256> expected = ((DynamicArray<Uint256>) decoded.get(0)).getValue();
+
+        assertThat(Multicall3.decodeLastUint256(Numeric.hexStringToByteArray(encoded)))
+                .isEqualTo(expected.get(expected.size() - 1).getValue());
+    }
+
+    @Test
+    void decodeLastUint256ReturnsNullForAnEmptyArray() {
+        String encoded = FunctionEncoder.encodeConstructor(List.of(new DynamicArray<>(Uint256.class, List.of())));
+
+        assertThat(Multicall3.decodeLastUint256(Numeric.hexStringToByteArray(encoded))).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        byte[] data = encodeResults(new DynamicStruct(new Bool(true), new DynamicBytes(bytes(64, 1))));
+        byte[] amounts = Numeric.hexStringToByteArray(FunctionEncoder.encodeConstructor(
+                List.of(new DynamicArray<>(Uint256.class, List.of(new Uint256(1), new Uint256(2))))));
+
+        assertThatThrownBy(() -> Multicall3.decodeAggregate3(Arrays.copyOf(data, data.length - 1)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Multicall3.decodeAggregate3(Arrays.copyOf(data, 40)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Multicall3.decodeAggregate3(new byte[0]))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> Multicall3.decodeLastUint256(Arrays.copyOf(amounts, amounts.length - 32)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsOffsetsAndLengthsOutOfRange() {
+        byte[] data = encodeResults(new DynamicStruct(new Bool(true), new DynamicBytes(bytes(64, 1))));
+
+        byte[] farOffset = data.clone();
+        farOffset[30] = 0x10;
+        assertThatThrownBy(() -> Multicall3.decodeAggregate3(farOffset))
+                .isInstanceOf(IllegalStateException.class);
+
+        // A count that does not fit into an int
+        byte[] hugeCount = data.clone();
+        hugeCount[32] = 1;
+        assertThatThrownBy(() -> Multicall3.decodeAggregate3(hugeCount))
+                .isInstanceOf(IllegalStateException.class);
+
+        // The last word is the second half of the return data; the length word precedes both halves
+        byte[] longReturnData = data.clone();
+        longReturnData[data.length - 3 * 32 + 31] = 65;
+        assertThatThrownBy(() -> Multicall3.decodeAggregate3(longReturnData))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static byte[] encodeResults(DynamicStruct... results) {
+        return Numeric.hexStringToByteArray(FunctionEncoder.encodeConstructor(
+                List.of(new DynamicArray<>(DynamicStruct.class, List.of(results)))));
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (seed + i);
+        }
+        return bytes;
+    }
+}
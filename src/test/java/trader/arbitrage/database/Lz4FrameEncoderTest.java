@@ -0,0 +1,59 @@
+package trader.arbitrage.database;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads the hand-written frames back through lz4-java's frame decoder
+ */
+class Lz4FrameEncoderTest {
+
+    private final Lz4FrameEncoder encoder = new Lz4FrameEncoder(0);
+
+    @Test
+    void encodesFramesTheReferenceDecoderReads() throws IOException {
+        byte[] repetitive = "CAKE_USDT,MEXC,2.345678;".repeat(10_000).getBytes();
+        byte[] random = new byte[3 * Lz4FrameEncoder.BLOCK_SIZE + 17];
+        new SplittableRandom(42).nextBytes(random);
+
+        for (byte[] data : new byte[][]{new byte[0], "x".getBytes(), repetitive, random}) {
+            encoder.encode(data, data.length);
+
+            assertThat(decode(encoder.toByteArray())).isEqualTo(data);
+        }
+        assertThat(encoder.size()).isLessThan(random.length + 64);
+    }
+
+    @Test
+    void encodesOnlyTheGivenPrefixAndReusesTheFrame() throws IOException {
+        byte[] data = "0123456789".repeat(20_000).getBytes();
+        encoder.encode(data, data.length);
+        byte[] frame = encoder.array();
+
+        encoder.encode(data, 25);
+
+        assertThat(encoder.array()).isSameAs(frame);
+        assertThat(decode(encoder.toByteArray())).isEqualTo(Arrays.copyOf(data, 25));
+    }
+
+    @Test
+    void staticHelperEncodesAPrefix() throws IOException {
+        byte[] data = "price ".repeat(1000).getBytes();
+
+        assertThat(decode(ClickHouseHttpWriter.lz4(data, 600))).isEqualTo(Arrays.copyOf(data, 600));
+    }
+
+    private static byte[] decode(byte[] frame) throws IOException {
+        try (InputStream in = new LZ4FrameInputStream(new ByteArrayInputStream(frame))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package trader.arbitrage.database;
+
+import org.junit.jupiter.api.Test;
+import trader.arbitrage.model.TokenPrice;
+import trader.arbitrage.model.clickhouse.ArbitrageEventRecord;
+import trader.arbitrage.model.clickhouse.TokenPriceRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the hand-rolled {@code RowBinary} coding with the JDK's UTF-8 encoder and plain
+ * little-endian buffers
+ */
+class RowBinaryEncoderTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final long NOON_EPOCH_SECOND = 1714564800L;
+
+    private final RowBinaryEncoder encoder = new RowBinaryEncoder(0, ZoneOffset.UTC);
+
+    @Test
+    void writesStringsAsTheirUtf8Bytes() {
+        for (String value : new String[]{"", "BTC_USDT", "Ωmega", "价格", "🚀 to the moon", "mixed: é€𝄞"}) {
+            encoder.reset();
+            encoder.writeString(value);
+
+            assertThat(written()).as(value).isEqualTo(string(value.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void writesUnpairedSurrogatesAsQuestionMarks() {
+        for (String value : new String[]{"a\uD83Db", "\uDE80x", "tail\uD83D", "\uDE80\uD83D"}) {
+            encoder.reset();
+            encoder.writeString(value);
+
+            assertThat(written()).as(value).isEqualTo(string(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        encoder.reset();
+        encoder.writeString("a\uD83Db");
+        assertThat(written()).containsExactly(3, 'a', '?', 'b');
+    }
+
+    @Test
+    void writesLengthsOver127AsMultiByteVarInts() {
+        encoder.writeString("x".repeat(127));
+        encoder.writeString("x".repeat(128));
+        encoder.writeString("x".repeat(200));
+        encoder.writeString("x".repeat(16384));
+        byte[] bytes = written();
+
+        assertThat(bytes[0]).isEqualTo((byte) 0x7F);
+        int second = 1 + 127;
+        assertThat(Arrays.copyOfRange(bytes, second, second + 2)).containsExactly(0x80, 0x01);
+        int third = second + 2 + 128;
+        assertThat(Arrays.copyOfRange(bytes, third, third + 2)).containsExactly(0xC8, 0x01);
+        int fourth = third + 2 + 200;
+        assertThat(Arrays.copyOfRange(bytes, fourth, fourth + 3)).containsExactly(0x80, 0x80, 0x01);
+        assertThat(bytes).hasSize(fourth + 3 + 16384);
+    }
+
+    @Test
+    void writesAPriceRecordWithANegativeDecimal() {
+        encoder.writePrice(new TokenPriceRecord("CAKE_USDT", null, new BigDecimal("-1.5"), NOON));
+
+        ByteBuffer expected = littleEndian(64)
+                .put(string("CAKE_USDT".getBytes(StandardCharsets.UTF_8)))
+                .put(string("UNKNOWN".getBytes(StandardCharsets.UTF_8)))
+                // Two's complement of the Decimal64(6) mantissa
+                .putLong(-1_500_000L)
+                .putInt((int) NOON_EPOCH_SECOND);
+        assertThat(written()).isEqualTo(Arrays.copyOf(expected.array(), expected.position()));
+        assertThat(Arrays.copyOfRange(written(), 18, 26))
+                .containsExactly(0xA0, 0x1C, 0xE9, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF);
+        assertThat(encoder.rows()).isEqualTo(1);
+    }
+
+    @Test
+    void writesAPublishedPriceLikeItsRecord() {
+        TokenPrice price = TokenPrice.builder()
+                .symbol("ETH_USDT")
+                .exchange("MEXC")
+                .price(new BigDecimal("3012.25"))
+                .timestamp(NOON.toInstant(ZoneOffset.UTC))
+                .build();
+        encoder.writePrice(price);
+        byte[] published = written();
+
+        encoder.reset();
+        encoder.writePrice(new TokenPriceRecord("ETH_USDT", "MEXC", new BigDecimal("3012.25"), NOON));
+
+        assertThat(published).isEqualTo(written());
+    }
+
+    @Test
+    void writesAnEventWithRoundedDecimals() {
+        encoder.writeEvent(ArbitrageEventRecord.builder()
+                .symbol("RFC_USDT")
+                .primaryExchange("MEXC")
+                .secondaryExchange("PancakeSwap")
+                .primaryPrice(new BigDecimal("0.0123455"))
+                .secondaryPrice(new BigDecimal("-0.0000005"))
+                .diffPercent(new BigDecimal("-2.125"))
+                .timestamp(NOON)
+                .build());
+
+        ByteBuffer expected = littleEndian(128)
+                .put(string("RFC_USDT".getBytes(StandardCharsets.UTF_8)))
+                .put(string("MEXC".getBytes(StandardCharsets.UTF_8)))
+                .put(string("PancakeSwap".getBytes(StandardCharsets.UTF_8)))
+                // HALF_UP rounds halves away from zero
+                .putLong(12_346L)
+                .putLong(-1L)
+                .putLong(-213L)
+                .putInt((int) NOON_EPOCH_SECOND);
+        assertThat(written()).isEqualTo(Arrays.copyOf(expected.array(), expected.position()));
+    }
+
+    @Test
+    void resetKeepsTheArrayForTheNextBatch() {
+        encoder.writeString("x".repeat(1000));
+        byte[] array = encoder.array();
+
+        encoder.reset();
+        encoder.writeInt64(-2);
+
+        assertThat(encoder.array()).isSameAs(array);
+        assertThat(encoder.rows()).isZero();
+        assertThat(written()).containsExactly(0xFE, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF);
+    }
+
+    private byte[] written() {
+        return Arrays.copyOf(encoder.array(), encoder.size());
+    }
+
+    /**
+     * Length prefix of a short string followed by its bytes
+     */
+    private static byte[] string(byte[] utf8) {
+        assertThat(utf8.length).isLessThan(128);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(utf8.length);
+        out.writeBytes(utf8);
+        return out.toByteArray();
+    }
+
+    private static ByteBuffer littleEndian(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
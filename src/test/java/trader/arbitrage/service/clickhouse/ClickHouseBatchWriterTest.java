@@ -0,0 +1,75 @@
+package trader.arbitrage.service.clickhouse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the writer against an in-memory sink that fails a given number of inserts first
+ */
+class ClickHouseBatchWriterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Integer> written = new CopyOnWriteArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void retriesAFailedBatchWithTheSameRows() {
+        ClickHouseBatchWriter<Integer> writer = writer(2);
+
+        submitAndClose(writer, 1, 2, 3, 4);
+
+        assertThat(written).containsExactly(1, 2, 3, 4);
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(registry.get("clickhouse.insert.retries").counter().count()).isEqualTo(2);
+        assertThat(registry.get("clickhouse.buffer.written").counter().count()).isEqualTo(4);
+        assertThat(registry.get("clickhouse.buffer.dropped").tag("reason", "insert-failed").counter().count())
+                .isZero();
+    }
+
+    @Test
+    void countsABatchAsLostOnceItsAttemptsAreExhausted() {
+        ClickHouseBatchWriter<Integer> writer = writer(Integer.MAX_VALUE);
+
+        submitAndClose(writer, 1, 2, 3, 4);
+
+        assertThat(written).isEmpty();
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(registry.get("clickhouse.buffer.dropped").tag("reason", "insert-failed").counter().count())
+                .isEqualTo(4);
+    }
+
+    private ClickHouseBatchWriter<Integer> writer(int failures) {
+        ClickHouseBatchWriter.Settings settings = new ClickHouseBatchWriter.Settings(
+                16, 4, 1, 8,
+                Duration.ofMillis(10),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(1),
+                3,
+                Duration.ofMillis(1),
+                ClickHouseBatchWriter.OverflowPolicy.DROP,
+                Duration.ZERO);
+        return new ClickHouseBatchWriter<>("test", batch -> Mono.defer(() -> {
+            if (calls.incrementAndGet() <= failures) {
+                return Mono.error(new IllegalStateException("insert " + calls.get() + " failed"));
+            }
+            written.addAll(batch);
+            return Mono.empty();
+        }), settings, registry);
+    }
+
+    private static void submitAndClose(ClickHouseBatchWriter<Integer> writer, Integer... rows) {
+        for (Integer row : rows) {
+            assertThat(writer.submit(row)).isTrue();
+        }
+        writer.start();
+        writer.close(Duration.ofSeconds(5));
+    }
+}